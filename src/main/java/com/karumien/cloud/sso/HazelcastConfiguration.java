@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso;
+
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.GroupConfig;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MaxSizeConfig;
+import com.hazelcast.config.MaxSizeConfig.MaxSizePolicy;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.ITopic;
+import com.karumien.cloud.sso.api.model.IdentityInfo;
+
+/**
+ * Hazelcast cluster configuration (caches shared by all instances of service).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 11:05:37
+ */
+@Configuration
+public class HazelcastConfiguration {
+
+    /** Cache of mapped Identities by KeyCloak User ID */
+    public static final String MAP_IDENTITIES = "identities";
+
+    /** Notifications about changed Identities (User ID) */
+    public static final String TOPIC_IDENTITY_CHANGES = "identity-changes";
+
+    /** Notifications about changed realm Roles (realm) */
+    public static final String TOPIC_ROLE_CHANGES = "role-changes";
+
+    /** Notifications about reloaded SelfCare hierarchy (realm) */
+    public static final String TOPIC_HIERARCHY_CHANGES = "hierarchy-changes";
+
+    /** Notifications about reloaded Password Policy (realm) */
+    public static final String TOPIC_PASSWORD_POLICY_CHANGES = "password-policy-changes";
+
+    /** Notifications about reloaded realm keys (realm) */
+    public static final String TOPIC_KEY_CHANGES = "key-changes";
+
+    @Value("${spring.application.name}")
+    private String groupName;
+
+    @Value("${hazelcast.members:}")
+    private String members;
+
+    @Value("${identity.cache.size:50000}")
+    private int identityCacheSize;
+
+    @Value("${identity.cache.ttl:300}")
+    private int identityCacheTtl;
+
+    @Bean
+    public Config hazelcastConfig() {
+
+        Config config = new Config(groupName);
+        config.setGroupConfig(new GroupConfig(groupName));
+
+        if (StringUtils.hasText(members)) {
+            JoinConfig join = config.getNetworkConfig().getJoin();
+            join.getMulticastConfig().setEnabled(false);
+            join.getTcpIpConfig().setEnabled(true)
+                .setMembers(StringUtils.commaDelimitedListToSet(members).stream().map(String::trim).collect(Collectors.toList()));
+        }
+
+        config.addMapConfig(new MapConfig(MAP_IDENTITIES)
+            .setTimeToLiveSeconds(identityCacheTtl)
+            .setEvictionPolicy(EvictionPolicy.LRU)
+            .setMaxSizeConfig(new MaxSizeConfig(identityCacheSize, MaxSizePolicy.PER_NODE)));
+
+        return config;
+    }
+
+    @Bean
+    public IMap<String, IdentityInfo> identityCache(HazelcastInstance hazelcastInstance) {
+        return hazelcastInstance.getMap(MAP_IDENTITIES);
+    }
+
+    /**
+     * Topic of changes invalidating local cache when change is published by other member. Cache is dropped only and
+     * reloaded by next request (no KeyCloak or DB call on Hazelcast event thread).
+     *
+     * @param hazelcastInstance
+     *            member of cluster
+     * @param name
+     *            name of topic
+     * @param invalidate
+     *            drop of local cache
+     * @return {@link ITopic} to publish own changes
+     */
+    public static ITopic<String> invalidatingTopic(HazelcastInstance hazelcastInstance, String name, Runnable invalidate) {
+        ITopic<String> topic = hazelcastInstance.getTopic(name);
+        topic.addMessageListener(message -> {
+            if (!message.getPublishingMember().localMember()) {
+                invalidate.run();
+            }
+        });
+        return topic;
+    }
+}
@@ -37,7 +37,9 @@ import org.springframework.web.servlet.i18n.AcceptHeaderLocaleResolver;
 @Component
 public class HeaderLocaleResolver extends AcceptHeaderLocaleResolver implements WebMvcConfigurer {
 
-    private static final List<Locale> SUPPORTED_LOCALES = Arrays.asList(new Locale("en"), new Locale("sk"), new Locale("cs"), 
+    public static final String MESSAGES = "i18n/messages";
+
+    public static final List<Locale> SUPPORTED_LOCALES = Arrays.asList(new Locale("en"), new Locale("sk"), new Locale("cs"), 
             new Locale("de"), new Locale("fr"));
     
     /**
@@ -63,7 +65,7 @@ public class HeaderLocaleResolver extends AcceptHeaderLocaleResolver implements
     @Bean
     public ResourceBundleMessageSource messageSource() {
         ResourceBundleMessageSource rs = new ResourceBundleMessageSource();
-        rs.setBasenames("i18n/messages");
+        rs.setBasenames(MESSAGES);
         rs.setDefaultEncoding("UTF-8");
         rs.setUseCodeAsDefaultMessage(true);
         return rs;
@@ -6,12 +6,23 @@
  */
 package com.karumien.cloud.sso;
 
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.Priorities;
+
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.KeycloakBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karumien.cloud.sso.internal.AdminTokenProvider;
+import com.karumien.cloud.sso.internal.TokenGrantExecutor;
+import com.karumien.cloud.sso.internal.TransactionGuardFilter;
+
 /**
  * KeyCloak server instance konfiguration.
  *
@@ -33,9 +44,100 @@ public class KeyCloakConfiguration {
     @Value("${keycloak.client-id}")
     private String CLIENT_ID;
 
+    @Value("${keycloak.realm}")
+    private String realm;
+
+    @Value("${keycloak.token.pool-size:64}")
+    private int tokenPoolSize;
+
+    @Value("${keycloak.token.connection-ttl:300000}")
+    private long tokenConnectionTtl;
+
+    @Value("${keycloak.token.connect-timeout:5000}")
+    private long tokenConnectTimeout;
+
+    @Value("${keycloak.token.socket-timeout:30000}")
+    private long tokenSocketTimeout;
+
+    @Value("${keycloak.admin.pool-size:32}")
+    private int adminPoolSize;
+
+    @Value("${keycloak.admin.min-token-validity:30}")
+    private long adminMinTokenValidity;
+
+    /** Static token disables synchronized TokenManager of admin client, real token is set by {@link AdminTokenProvider} */
+    private static final String ADMIN_TOKEN_PLACEHOLDER = "admin";
+
+    @Value("${keycloak.transaction-guard:WARN}")
+    private TransactionGuardFilter.Mode transactionGuard;
+
+    /**
+     * Guard of KeyCloak calls inside of open transaction.
+     *
+     * @return {@link TransactionGuardFilter} filter of KeyCloak clients
+     */
+    @Bean
+    public TransactionGuardFilter transactionGuardFilter() {
+        return new TransactionGuardFilter(transactionGuard);
+    }
+
+    @Bean
+    public Keycloak getKeyCloak(AdminTokenProvider adminTokenProvider, TransactionGuardFilter transactionGuardFilter) {
+        // provider runs after stock bearer filter (priority USER) and replaces placeholder token
+        ResteasyClient client = new ResteasyClientBuilder().connectionPoolSize(adminPoolSize)
+            .register(transactionGuardFilter, Priorities.AUTHENTICATION - 1)
+            .register(adminTokenProvider, Priorities.USER + 1)
+            .build();
+        return KeycloakBuilder.builder().serverUrl(ADMIN_SERVER_URL).realm("master").clientId(CLIENT_ID)
+                .authorization(ADMIN_TOKEN_PLACEHOLDER).resteasyClient(client).build();
+    }
+
+    /**
+     * Lock-free holder of admin token refreshed in background.
+     *
+     * @param tokenClient
+     *            shared client of token endpoint
+     * @param mapper
+     *            JSON mapper (factory of streaming parsers)
+     * @return {@link AdminTokenProvider} provider of admin token
+     */
+    @Bean
+    public AdminTokenProvider adminTokenProvider(ResteasyClient tokenClient, ObjectMapper mapper) {
+        return new AdminTokenProvider(new TokenGrantExecutor(tokenClient, ADMIN_SERVER_URL, "master", mapper.getFactory()),
+            CLIENT_ID, USERNAME, PASSWORD, adminMinTokenValidity);
+    }
+
+    /**
+     * Long-lived pooled HTTP client of token endpoint shared by all logins (keep-alive connections, TLS sessions
+     * reused by one SSL context).
+     *
+     * @param transactionGuardFilter
+     *            guard of calls inside of transaction
+     * @return {@link ResteasyClient} shared client
+     */
+    @Bean(destroyMethod = "close")
+    public ResteasyClient tokenClient(TransactionGuardFilter transactionGuardFilter) {
+        return new ResteasyClientBuilder()
+            .register(transactionGuardFilter)
+            .connectionPoolSize(tokenPoolSize)
+            .maxPooledPerRoute(tokenPoolSize)
+            .connectionTTL(tokenConnectionTtl, TimeUnit.MILLISECONDS)
+            .establishConnectionTimeout(tokenConnectTimeout, TimeUnit.MILLISECONDS)
+            .socketTimeout(tokenSocketTimeout, TimeUnit.MILLISECONDS)
+            .build();
+    }
+
+    /**
+     * Stateless executor of token grants shared by all logins.
+     *
+     * @param tokenClient
+     *            shared client
+     * @param mapper
+     *            JSON mapper (factory of streaming parsers)
+     * @return {@link TokenGrantExecutor} executor of realm token endpoint
+     */
     @Bean
-    public Keycloak getKeyCloak() {
-        return KeycloakBuilder.builder().serverUrl(ADMIN_SERVER_URL).realm("master")
-                .username(USERNAME).password(PASSWORD).clientId(CLIENT_ID).build();
+    public TokenGrantExecutor tokenGrantExecutor(ResteasyClient tokenClient, ObjectMapper mapper) {
+        return new TokenGrantExecutor(tokenClient, ADMIN_SERVER_URL, realm, mapper.getFactory());
     }
 }
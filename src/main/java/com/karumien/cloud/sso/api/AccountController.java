@@ -7,27 +7,40 @@
 package com.karumien.cloud.sso.api;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.keycloak.representations.idm.UserRepresentation;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.karumien.cloud.sso.api.entity.RebirthEntity;
 import com.karumien.cloud.sso.api.handler.AccountsApi;
 import com.karumien.cloud.sso.api.model.AccountInfo;
@@ -45,6 +58,7 @@ import com.karumien.cloud.sso.api.model.IdentityRoleInfo;
 import com.karumien.cloud.sso.api.model.IdentityState;
 import com.karumien.cloud.sso.api.model.ModuleInfo;
 import com.karumien.cloud.sso.api.model.OnBoardingInfo;
+import com.karumien.cloud.sso.api.model.OnBoardingItemResult;
 import com.karumien.cloud.sso.api.model.RoleInfo;
 import com.karumien.cloud.sso.exceptions.IdNotFoundException;
 import com.karumien.cloud.sso.exceptions.PasswordPolicyException;
@@ -52,11 +66,14 @@ import com.karumien.cloud.sso.exceptions.RebirthNotFoundException;
 import com.karumien.cloud.sso.exceptions.UnsupportedApiOperationException;
 import com.karumien.cloud.sso.service.AccountService;
 import com.karumien.cloud.sso.service.AuthService;
+import com.karumien.cloud.sso.service.FanOutService;
 import com.karumien.cloud.sso.service.IdentityService;
 import com.karumien.cloud.sso.service.ModuleService;
+import com.karumien.cloud.sso.service.OnboardingService;
 import com.karumien.cloud.sso.service.RebirthService;
 import com.karumien.cloud.sso.service.RoleService;
 import com.karumien.cloud.sso.service.SearchService;
+import com.karumien.cloud.sso.util.KeysetPage;
 import com.karumien.cloud.sso.util.PageableUtils;
 import com.karumien.cloud.sso.util.TrippleDes;
 
@@ -72,6 +89,8 @@ import io.swagger.annotations.Api;
 @Api(value = "Account Service", description = "Management of Accounts (Customers)", tags = { "Account Service" })
 public class AccountController implements AccountsApi {
 
+    private static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+
     private static final List<String> DEFAULT_PROPERTIES = 
         Arrays.asList("accountNumber", "name", "compRegNo", "contactEmail", "note", "locale");
     
@@ -92,6 +111,12 @@ public class AccountController implements AccountsApi {
     
     @Autowired
     private RebirthService rebirthService;
+
+    @Autowired
+    private FanOutService fanOutService;
+
+    @Autowired
+    private OnboardingService onboardingService;
     
     @Autowired
     private SearchService searchService;
@@ -101,6 +126,10 @@ public class AccountController implements AccountsApi {
 
     @Value("${DB_PASSWORD:admMe123}")
     private String secret;
+
+    /** Items of one fan-out batch of legacy onboarding (every batch has its own deadline) */
+    @Value("${onboarding.chunk-size:200}")
+    private int onboardingChunkSize;
     
     /**
      * {@inheritDoc}
@@ -339,8 +368,7 @@ public class AccountController implements AccountsApi {
      */
     @Override
     public ResponseEntity<Void> activateAccountModule(String accountNumber, String moduleId, Boolean applyRoles) {
-        moduleService.activateModules(Arrays.asList(moduleId), Arrays.asList(accountNumber), applyRoles);
-        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+        return accepted(moduleService.activateModules(Arrays.asList(moduleId), Arrays.asList(accountNumber), applyRoles));
     }
     
     /**
@@ -411,8 +439,7 @@ public class AccountController implements AccountsApi {
      */
     @Override
     public ResponseEntity<Void> activateAccountModules(String accountNumber, @Valid List<String> modules, @Valid Boolean applyRoles) {
-        moduleService.activateModules(modules, Arrays.asList(accountNumber), applyRoles);
-        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+        return accepted(moduleService.activateModules(modules, Arrays.asList(accountNumber), applyRoles));
     }
 
     /**
@@ -420,8 +447,7 @@ public class AccountController implements AccountsApi {
      */
     @Override
     public ResponseEntity<Void> deactivateAccountModules(String accountNumber, List<String> modules) {
-        moduleService.deactivateModules(modules, Arrays.asList(accountNumber));
-        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        return accepted(moduleService.deactivateModules(modules, Arrays.asList(accountNumber)));
     }
 
     /**
@@ -437,8 +463,7 @@ public class AccountController implements AccountsApi {
      */
     @Override
     public ResponseEntity<Void> deactivateAccountModule(String accountNumber, String moduleId) {
-        moduleService.deactivateModules(Arrays.asList(moduleId), Arrays.asList(accountNumber));
-        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+        return accepted(moduleService.deactivateModules(Arrays.asList(moduleId), Arrays.asList(accountNumber)));
     }
 
     /**
@@ -462,11 +487,60 @@ public class AccountController implements AccountsApi {
      * {@inheritDoc}
      */
     @Override
-    public ResponseEntity<List<IdentityInfo>> getAccountIdentities(String accountNumber, String roleId, List<String> contactNumbers, Boolean loginInfo) {
-    	return new ResponseEntity<>(accountService.getAccountIdentities(accountNumber, roleId, contactNumbers, Boolean.TRUE.equals(loginInfo)), HttpStatus.OK);
+    public ResponseEntity<List<IdentityInfo>> getAccountIdentities(String accountNumber, String roleId, List<String> contactNumbers, Boolean loginInfo,
+            Integer limit, String after, String sort) {
+
+        // explicit contactNumbers filter is small, keyset pagination only for whole account
+        if (limit == null || !CollectionUtils.isEmpty(contactNumbers)) {
+            return new ResponseEntity<>(accountService.getAccountIdentities(accountNumber, roleId, contactNumbers, Boolean.TRUE.equals(loginInfo)), HttpStatus.OK);
+        }
+
+        KeysetPage<IdentityInfo> found = accountService.getAccountIdentities(accountNumber, roleId, Boolean.TRUE.equals(loginInfo),
+            PageableUtils.getKeysetRequest(limit, after, sort, IdentityService.KEYSET_PROPERTIES));
+
+        HttpHeaders headers = new HttpHeaders();
+        if (found.getNext() != null) {
+            headers.add(KeysetPage.HEADER_NEXT_CURSOR, found.getNext());
+        }
+        return new ResponseEntity<>(found.getContent(), headers, HttpStatus.OK);
     }
     
         
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Written synchronously into response as rows arrive from DB cursor (no async dispatch, no buffering of body).
+     */
+    @Override
+    public ResponseEntity<Void> exportAccountIdentities(String accountNumber, Boolean loginInfo) {
+
+        // fail with 410 before streaming starts
+        accountService.getAccount(accountNumber);
+
+        HttpServletResponse response = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getResponse();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MEDIA_TYPE_NDJSON);
+
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        try {
+            OutputStream out = response.getOutputStream();
+            accountService.exportAccountIdentities(accountNumber, Boolean.TRUE.equals(loginInfo), identity -> {
+                try {
+                    out.write(writer.writeValueAsBytes(identity));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // response already committed
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -559,7 +633,9 @@ public class AccountController implements AccountsApi {
      */
     @Override
     public ResponseEntity<List<ModuleInfo>> getAccountHierarchy(String accountNumber) {
-        return new ResponseEntity<>(accountService.getAccountHierarchy(accountNumber), HttpStatus.OK);
+        // version before content: concurrent refresh could only cause one more download
+        String version = accountService.getAccountHierarchyVersion(accountNumber);
+        return ResponseEntity.ok().eTag(version).varyBy(HttpHeaders.ACCEPT_LANGUAGE).body(accountService.getAccountHierarchy(accountNumber));
     }
     
     /**
@@ -683,120 +759,322 @@ public class AccountController implements AccountsApi {
     @Override
     public ResponseEntity<List<IdentityInfo>> onboarding(@Valid List<OnBoardingInfo> onBoardingInfos) {
 
+        AtomicReferenceArray<OnBoardingResult> results = new AtomicReferenceArray<>(onBoardingInfos.size());
         List<IdentityInfo> found = new ArrayList<>();
-        
-        for (OnBoardingInfo onBoardingInfo : onBoardingInfos) {
-        
+
+        // fail-fast of sequential import: error is rethrown while at most one Identity is imported, so items run
+        // in order until second Identity is imported, failure stops import before later items
+        int next = 0;
+        for (; next < results.length() && found.size() < 2; next++) {
+            results.set(next, onboarding(onBoardingInfos.get(next)));
+            ResponseEntity<List<IdentityInfo>> failed = evaluate(onBoardingInfos.get(next), results.get(next), found);
+            if (failed != null) {
+                return failed;
+            }
+        }
+
+        // rest can't fail whole import, items of one account or Identity run in order, groups in parallel
+        for (List<List<Integer>> chunk : getOnboardingChunks(getOnboardingGroups(onBoardingInfos, next))) {
             try {
-                // note
-                if (!StringUtils.isEmpty(onBoardingInfo.getNote())) {
-                    MDC.put("note_full", onBoardingInfo.getNote());
+                fanOutService.forEach("onboarding", chunk,
+                    indexes -> indexes.forEach(i -> results.compareAndSet(i, null, onboarding(onBoardingInfos.get(i)))));
+            } catch (RuntimeException e) {
+                // deadline of chunk - not finished items are failed, late results are ignored, next chunk continues
+                for (List<Integer> indexes : chunk) {
+                    for (int i : indexes) {
+                        OnBoardingResult timedOut = new OnBoardingResult();
+                        timedOut.error = e;
+                        results.compareAndSet(i, null, timedOut);
+                    }
                 }
-                
-                // account
-                if (onBoardingInfo.getAccount() != null) {
+            }
+        }
 
-                    MDC.put("accountNumber", onBoardingInfo.getAccount().getAccountNumber());
+        for (int i = next; i < results.length(); i++) {
+            evaluate(onBoardingInfos.get(i), results.get(i), found);
+        }
 
-                    // notes
-                    if (StringUtils.isEmpty(onBoardingInfo.getAccount().getNote())) {
-                        onBoardingInfo.getAccount().setNote(onBoardingInfo.getNote());
-                    }
-                    
-                    if (accountService.findAccount(onBoardingInfo.getAccount().getAccountNumber()).isPresent()) {                        
-                        // TODO: accountService.update
-                        if (onBoardingInfo.isOverwriteAccount()) {
-                        }
-                    } else {
-                        accountService.createAccount(onBoardingInfo.getAccount());
+        return CollectionUtils.isEmpty(found) ? new ResponseEntity<>(HttpStatus.GONE) : new ResponseEntity<>(found, HttpStatus.CREATED); 
+    }
+
+    private ResponseEntity<List<IdentityInfo>> evaluate(OnBoardingInfo onBoardingInfo, OnBoardingResult result, List<IdentityInfo> found) {
+
+        if (result.added) {
+            found.add(result.identityInfo);
+        }
+
+        Exception e = result.error;
+        if (e != null) {
+            if (found.size() == 1) {
+                if (e instanceof RuntimeException) {
+                   throw (RuntimeException) e;
+                } else {
+                   return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+                }
+            }
+            log.warn("Error import " + onBoardingInfo, e);
+        }
+        return null;
+    }
+    
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<List<OnBoardingItemResult>> onboardingBulk(@Valid List<OnBoardingInfo> onBoardingInfos) {
+        return new ResponseEntity<>(onboardingService.onboarding(onBoardingInfos), HttpStatus.OK);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Runs on request thread (migration is longer than async request timeout), next window is read from request only
+     * after results of previous window are flushed.
+     */
+    @Override
+    public ResponseEntity<Void> onboardingStream() {
+
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        HttpServletResponse response = attributes.getResponse();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MEDIA_TYPE_NDJSON);
+
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        try (MappingIterator<OnBoardingInfo> records = mapper.readerFor(OnBoardingInfo.class)
+                .readValues(attributes.getRequest().getInputStream())) {
+            OutputStream out = response.getOutputStream();
+            onboardingService.onboarding(records, results -> {
+                try {
+                    for (OnBoardingItemResult result : results) {
+                        out.write(writer.writeValueAsBytes(result));
+                        out.write('\n');
                     }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // response already committed
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<AccountState> getAccountState(String accountNumber) {
+        return new ResponseEntity<>(accountService.getAccountState(accountNumber), HttpStatus.OK);
+    }
+
+    /**
+     * Accepted change processed by Job.
+     *
+     * @param jobId
+     *            ID of Job
+     * @return 202 with Location of Job's progress
+     */
+    private ResponseEntity<Void> accepted(String jobId) {
+        return ResponseEntity.accepted()
+            .location(ServletUriComponentsBuilder.fromCurrentContextPath().path("/jobs/{jobId}").buildAndExpand(jobId).toUri())
+            .build();
+    }
+
+    /**
+     * Groups of items sharing account number, nav4Id or contactNumber (transitively), so check-then-create of Account
+     * and Identity is never done by two groups at once.
+     *
+     * @param onBoardingInfos
+     *            all items
+     * @param from
+     *            index of first grouped item
+     * @return {@link Collection} of groups (indexes in item order)
+     */
+    private Collection<List<Integer>> getOnboardingGroups(List<OnBoardingInfo> onBoardingInfos, int from) {
+
+        int[] parent = new int[onBoardingInfos.size()];
+        Map<String, Integer> owners = new HashMap<>();
+        for (int i = from; i < onBoardingInfos.size(); i++) {
+            parent[i] = i;
+            for (String key : getOnboardingKeys(onBoardingInfos.get(i))) {
+                Integer owner = owners.putIfAbsent(key, i);
+                if (owner != null) {
+                    parent[root(parent, i)] = root(parent, owner);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = from; i < onBoardingInfos.size(); i++) {
+            groups.computeIfAbsent(root(parent, i), k -> new ArrayList<>()).add(i);
+        }
+        return groups.values();
+    }
+
+    /**
+     * Groups split to fan-out batches of about {@code onboarding.chunk-size} items, so deadline is per batch and not
+     * per whole import.
+     */
+    private List<List<List<Integer>>> getOnboardingChunks(Collection<List<Integer>> groups) {
+        List<List<List<Integer>>> chunks = new ArrayList<>();
+        List<List<Integer>> chunk = new ArrayList<>();
+        int items = 0;
+        for (List<Integer> group : groups) {
+            chunk.add(group);
+            items += group.size();
+            if (items >= onboardingChunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                items = 0;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private int root(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    private List<String> getOnboardingKeys(OnBoardingInfo onBoardingInfo) {
+        List<String> keys = new ArrayList<>();
+        if (onBoardingInfo.getAccount() != null && onBoardingInfo.getAccount().getAccountNumber() != null) {
+            keys.add("account:" + onBoardingInfo.getAccount().getAccountNumber());
+        }
+        IdentityInfo identity = onBoardingInfo.getIdentity();
+        if (identity != null) {
+            if (identity.getAccountNumber() != null) {
+                keys.add("account:" + identity.getAccountNumber());
+            }
+            if (StringUtils.hasText(identity.getNav4Id())) {
+                keys.add("nav4Id:" + identity.getNav4Id());
+            }
+            if (StringUtils.hasText(identity.getContactNumber())) {
+                keys.add("contactNumber:" + identity.getContactNumber());
+            }
+        }
+        return keys;
+    }
+
+    private OnBoardingResult onboarding(OnBoardingInfo onBoardingInfo) {
+
+        OnBoardingResult result = new OnBoardingResult();
+        try {
+            // note
+            if (!StringUtils.isEmpty(onBoardingInfo.getNote())) {
+                MDC.put("note_full", onBoardingInfo.getNote());
+            }
+            
+            // account
+            if (onBoardingInfo.getAccount() != null) {
+
+                MDC.put("accountNumber", onBoardingInfo.getAccount().getAccountNumber());
+
+                // notes
+                if (StringUtils.isEmpty(onBoardingInfo.getAccount().getNote())) {
+                    onBoardingInfo.getAccount().setNote(onBoardingInfo.getNote());
                 }
                 
-                // identity
-                if (onBoardingInfo.getIdentity() != null) {
-                    
-                    if (onBoardingInfo.getIdentity().getAccountNumber() == null && onBoardingInfo.getAccount() != null) {
-                        onBoardingInfo.getIdentity().setAccountNumber(onBoardingInfo.getAccount().getAccountNumber());
+                if (accountService.findAccount(onBoardingInfo.getAccount().getAccountNumber()).isPresent()) {                        
+                    // TODO: accountService.update
+                    if (onBoardingInfo.isOverwriteAccount()) {
                     }
-                    
-                    MDC.put("accountNumber", onBoardingInfo.getIdentity().getAccountNumber());
-                    MDC.put("contactNumber", onBoardingInfo.getIdentity().getContactNumber());
+                } else {
+                    accountService.createAccount(onBoardingInfo.getAccount());
+                }
+            }
+            
+            // identity
+            if (onBoardingInfo.getIdentity() != null) {
+                
+                if (onBoardingInfo.getIdentity().getAccountNumber() == null && onBoardingInfo.getAccount() != null) {
+                    onBoardingInfo.getIdentity().setAccountNumber(onBoardingInfo.getAccount().getAccountNumber());
+                }
+                
+                MDC.put("accountNumber", onBoardingInfo.getIdentity().getAccountNumber());
+                MDC.put("contactNumber", onBoardingInfo.getIdentity().getContactNumber());
 
-                    // notes
-                    if (StringUtils.isEmpty(onBoardingInfo.getIdentity().getNote())) {
-                        onBoardingInfo.getIdentity().setNote(onBoardingInfo.getNote());
-                    }
+                // notes
+                if (StringUtils.isEmpty(onBoardingInfo.getIdentity().getNote())) {
+                    onBoardingInfo.getIdentity().setNote(onBoardingInfo.getNote());
+                }
 
-                    Optional<UserRepresentation> identity = Optional.empty();
-                    
-                    if (StringUtils.hasText(onBoardingInfo.getIdentity().getNav4Id())) {
-                        MDC.put("nav4Id", onBoardingInfo.getIdentity().getNav4Id());                        
-                        identity = identityService.findIdentityNav4(onBoardingInfo.getIdentity().getNav4Id());
+                Optional<UserRepresentation> identity = Optional.empty();
+                
+                if (StringUtils.hasText(onBoardingInfo.getIdentity().getNav4Id())) {
+                    MDC.put("nav4Id", onBoardingInfo.getIdentity().getNav4Id());                        
+                    identity = identityService.findIdentityNav4(onBoardingInfo.getIdentity().getNav4Id());
+                } else {
+                    identity = identityService.findIdentity(onBoardingInfo.getIdentity().getContactNumber());
+                }
+                
+                IdentityInfo identityInfo = null;
+                
+                if (identity.isPresent()) {
+                    MDC.put("identityId", identity.get().getId());
+
+                    if (onBoardingInfo.isOverwriteIdentity()) {
+                        identityInfo = identityService.updateIdentity(onBoardingInfo.getIdentity().getContactNumber(), 
+                            onBoardingInfo.getIdentity(), UpdateType.UPDATE);
                     } else {
-                        identity = identityService.findIdentity(onBoardingInfo.getIdentity().getContactNumber());
+                        identityInfo = identityService.mapping(identity.get(), false);
                     }
                     
-                    IdentityInfo identityInfo = null;
-                    
-                    if (identity.isPresent()) {
-                        MDC.put("identityId", identity.get().getId());
-
-                        if (onBoardingInfo.isOverwriteIdentity()) {
-                            identityInfo = identityService.updateIdentity(onBoardingInfo.getIdentity().getContactNumber(), 
-                                onBoardingInfo.getIdentity(), UpdateType.UPDATE);
-                        } else {
-                            identityInfo = identityService.mapping(identity.get(), false);
-                        }
-                        
-                        if (!CollectionUtils.isEmpty(onBoardingInfo.getRoles()) && onBoardingInfo.isOverwriteRoles()) {
-                            identityService.updateRolesOfIdentity(
-                                identityInfo.getIdentityId(), onBoardingInfo.getRoles(), UpdateType.ADD, null);
-                        }
-                        
-                    } else {
-                        identityInfo = identityService.createIdentity(onBoardingInfo.getIdentity());
-                        if (!CollectionUtils.isEmpty(onBoardingInfo.getRoles())) {
-                            identityService.updateRolesOfIdentity(
-                                identityInfo.getIdentityId(), onBoardingInfo.getRoles(), UpdateType.ADD, null);
-                        }
-                    }   
+                    if (!CollectionUtils.isEmpty(onBoardingInfo.getRoles()) && onBoardingInfo.isOverwriteRoles()) {
+                        identityService.updateRolesOfIdentity(
+                            identityInfo.getIdentityId(), onBoardingInfo.getRoles(), UpdateType.ADD, null);
+                    }
                     
-                    try {
-                        if ((!identity.isPresent() || identity.isPresent() && onBoardingInfo.isOverwritePassword()) 
-                                && identityInfo != null && onBoardingInfo.getCredentials() != null) {
-                            if (StringUtils.hasText(onBoardingInfo.getIdentity().getNav4Id())) {
-                                identityService.createIdentityCredentialsNav4(onBoardingInfo.getIdentity().getNav4Id(), onBoardingInfo.getCredentials());
-                            } else {
-                                identityService.createIdentityCredentials(onBoardingInfo.getIdentity().getContactNumber(), onBoardingInfo.getCredentials());
-                            }
-                            identityInfo.setState(IdentityState.CREDENTIALS_CREATED);
-                        }
-                    } finally {
-                        found.add(identityInfo);
+                } else {
+                    identityInfo = identityService.createIdentity(onBoardingInfo.getIdentity());
+                    if (!CollectionUtils.isEmpty(onBoardingInfo.getRoles())) {
+                        identityService.updateRolesOfIdentity(
+                            identityInfo.getIdentityId(), onBoardingInfo.getRoles(), UpdateType.ADD, null);
                     }
-                }
+                }   
                 
-            } catch (Exception e) {
-                if (found.size() == 1) {
-                    if (e instanceof RuntimeException) {
-                       throw e;
-                    } else {
-                       return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);                  
+                try {
+                    if ((!identity.isPresent() || identity.isPresent() && onBoardingInfo.isOverwritePassword()) 
+                            && identityInfo != null && onBoardingInfo.getCredentials() != null) {
+                        if (StringUtils.hasText(onBoardingInfo.getIdentity().getNav4Id())) {
+                            identityService.createIdentityCredentialsNav4(onBoardingInfo.getIdentity().getNav4Id(), onBoardingInfo.getCredentials());
+                        } else {
+                            identityService.createIdentityCredentials(onBoardingInfo.getIdentity().getContactNumber(), onBoardingInfo.getCredentials());
+                        }
+                        identityInfo.setState(IdentityState.CREDENTIALS_CREATED);
                     }
+                } finally {
+                    result.identityInfo = identityInfo;
+                    result.added = true;
                 }
-                log.warn("Error import " + onBoardingInfo, e);                    
             }
+            
+        } catch (Exception e) {
+            result.error = e;
         }
-        
-        return CollectionUtils.isEmpty(found) ? new ResponseEntity<>(HttpStatus.GONE) : new ResponseEntity<>(found, HttpStatus.CREATED); 
+        return result;
     }
-    
+
     /**
-     * {@inheritDoc}
+     * Result of one onboarding item.
      */
-    @Override
-    public ResponseEntity<AccountState> getAccountState(String accountNumber) {
-        return new ResponseEntity<>(accountService.getAccountState(accountNumber), HttpStatus.OK);
+    private static class OnBoardingResult {
+
+        private IdentityInfo identityInfo;
+
+        /** Identity processed (also when credentials failed) */
+        private boolean added;
+
+        private Exception error;
     }
     
 }
\ No newline at end of file
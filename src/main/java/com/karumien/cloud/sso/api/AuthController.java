@@ -8,6 +8,8 @@ package com.karumien.cloud.sso.api;
 
 import java.io.ByteArrayInputStream;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.NotAuthorizedException;
@@ -15,8 +17,10 @@ import javax.ws.rs.NotAuthorizedException;
 import org.apache.commons.codec.binary.Base64;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
@@ -61,6 +65,9 @@ public class AuthController implements AuthApi  {
     
     @Autowired
     private MessageSource messageSource;
+
+    @Value("${realm.keys.max-age:300}")
+    private long keysMaxAge;
     
     /**
      * {@inheritDoc}
@@ -68,7 +75,28 @@ public class AuthController implements AuthApi  {
     @SuppressWarnings({ "unchecked", "rawtypes" })
     @Override
     public ResponseEntity<Void> publicKey() {
-        return new ResponseEntity(authService.getPublicKey(), HttpStatus.OK);
+        return (ResponseEntity) ResponseEntity.ok().cacheControl(keysCacheControl()).body(authService.getPublicKey());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Override
+    public ResponseEntity<Void> jwks() {
+        return (ResponseEntity) ResponseEntity.ok().cacheControl(keysCacheControl()).body(authService.getJwks());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<Map<String, Object>> introspect(String token) {
+        return new ResponseEntity<>(authService.introspect(token), HttpStatus.OK);
+    }
+
+    private CacheControl keysCacheControl() {
+        return CacheControl.maxAge(keysMaxAge, TimeUnit.SECONDS).cachePublic();
     }
     
     /**
@@ -206,7 +234,7 @@ public class AuthController implements AuthApi  {
             throw new IllegalArgumentException("Use grant_type refresh_token for logout");
         }
         
-        authService.logoutByToken(user.getRefreshToken());
+        authService.logoutByToken(user.getClientId(), user.getClientSecret(), user.getRefreshToken());
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);   
     }
     
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.karumien.cloud.sso.api.handler.CachesApi;
+import com.karumien.cloud.sso.service.AuthService;
+import com.karumien.cloud.sso.service.GroupService;
+import com.karumien.cloud.sso.service.RealmKeyService;
+
+import io.swagger.annotations.Api;
+
+/**
+ * REST Controller for management of in-memory caches.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 15:12:40
+ */
+@RestController
+@Api(value = "Cache Service", description = "Management of in-memory Caches", tags = { "Cache Service" })
+public class CacheController implements CachesApi {
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private RealmKeyService realmKeyService;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<Void> refreshHierarchy() {
+        groupService.refreshAccountHierarchy();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<Void> refreshPasswordPolicy() {
+        authService.refreshPasswordPolicy();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<Void> refreshKeys() {
+        realmKeyService.refresh();
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
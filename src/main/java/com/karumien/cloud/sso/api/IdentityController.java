@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
@@ -34,6 +35,8 @@ import com.karumien.cloud.sso.exceptions.PasswordPolicyException;
 import com.karumien.cloud.sso.service.AuthService;
 import com.karumien.cloud.sso.service.IdentityService;
 import com.karumien.cloud.sso.service.RoleService;
+import com.karumien.cloud.sso.util.KeysetPage;
+import com.karumien.cloud.sso.util.PageableUtils;
 
 import io.swagger.annotations.Api;
 
@@ -264,12 +267,12 @@ public class IdentityController implements IdentitiesApi {
         }
 
         if (StringUtils.hasText(contactNumber)) {
-            identityService.getIdentity(contactNumber, false);
+            identityService.getIdentityId(IdentityPropertyType.ATTR_CONTACT_NUMBER, contactNumber);
             return new ResponseEntity<>(HttpStatus.OK);
         }
 
         if (StringUtils.hasText(nav4Id)) {
-            identityService.getIdentityByNav4(nav4Id, false);
+            identityService.getIdentityId(IdentityPropertyType.ATTR_NAV4ID, nav4Id);
             return new ResponseEntity<>(HttpStatus.OK);
         }
 
@@ -306,7 +309,7 @@ public class IdentityController implements IdentitiesApi {
      */
     @Override
     public ResponseEntity<List<IdentityInfo>> searchIdentity(String identityId, String username, String accountNumber, String contactNumber,
-            String nav4Id, String email, String phone, String note, Boolean hasCredentials) {
+            String nav4Id, String email, String phone, String note, Boolean hasCredentials, Integer limit, String after, String sort) {
 
         Map<IdentityPropertyType, String> searchFilter = new HashMap<>();
         identityService.putIfPresent(searchFilter, IdentityPropertyType.ID, identityId);
@@ -327,8 +330,22 @@ public class IdentityController implements IdentitiesApi {
            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
         }
 
-        List<IdentityInfo> found = identityService.search(searchFilter);
-        return CollectionUtils.isEmpty(found) ? new ResponseEntity<>(HttpStatus.GONE) : new ResponseEntity<>(found, HttpStatus.OK);
+        if (limit == null) {
+            List<IdentityInfo> found = identityService.search(searchFilter);
+            return CollectionUtils.isEmpty(found) ? new ResponseEntity<>(HttpStatus.GONE) : new ResponseEntity<>(found, HttpStatus.OK);
+        }
+
+        KeysetPage<IdentityInfo> found = identityService.search(searchFilter,
+            PageableUtils.getKeysetRequest(limit, after, sort, IdentityService.KEYSET_PROPERTIES));
+        if (CollectionUtils.isEmpty(found.getContent())) {
+            return new ResponseEntity<>(HttpStatus.GONE);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        if (found.getNext() != null) {
+            headers.add(KeysetPage.HEADER_NEXT_CURSOR, found.getNext());
+        }
+        return new ResponseEntity<>(found.getContent(), headers, HttpStatus.OK);
     }
     
     /**
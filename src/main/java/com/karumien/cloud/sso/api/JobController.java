@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.api;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.karumien.cloud.sso.api.handler.JobsApi;
+import com.karumien.cloud.sso.api.model.JobInfo;
+import com.karumien.cloud.sso.service.JobService;
+
+import io.swagger.annotations.Api;
+
+/**
+ * REST Controller for Job Service (API).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 22:41:07
+ */
+@RestController
+@Api(value = "Job Service", description = "Progress of asynchronous Jobs", tags = { "Job Service" })
+public class JobController implements JobsApi {
+
+    @Autowired
+    private JobService jobService;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResponseEntity<JobInfo> getJob(String jobId) {
+        return new ResponseEntity<>(jobService.getJob(jobId), HttpStatus.OK);
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.api.entity;
+
+/**
+ * Read-only projection of Identity (USER_ENTITY joined with USER_ATTRIBUTE and CREDENTIAL).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 10:12:45
+ */
+public interface IdentityProjection {
+
+    String getIdentityId();
+
+    String getUsername();
+
+    String getFirstName();
+
+    String getLastName();
+
+    String getEmail();
+
+    Boolean getEmailVerified();
+
+    Boolean getEnabled();
+
+    Long getCreatedTimestamp();
+
+    String getAccountNumber();
+
+    String getContactNumber();
+
+    String getNav4Id();
+
+    String getPhone();
+
+    String getNote();
+
+    String getLocale();
+
+    String getLastLogin();
+
+    String getLastLogout();
+
+    String getLastLoginError();
+
+    Boolean getHasCredentials();
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.api.entity;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Asynchronous Job (propagation of Modules to Identities) with checkpoint of processed Accounts.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 22:08:51
+ */
+@Entity
+@Table(name = "PLUGIN_JOB")
+@Data
+@EqualsAndHashCode(of = "id")
+public class JobEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "ID", length = 36)
+    private String id;
+
+    @Column(name = "TYPE", length = 40)
+    private String type;
+
+    @Column(name = "STATE", length = 20)
+    private String state;
+
+    /** Comma separated Module IDs */
+    @Column(name = "MODULES", length = 1024)
+    private String modules;
+
+    /** Comma separated Account Numbers */
+    @Column(name = "ACCOUNTS", columnDefinition = "text")
+    private String accounts;
+
+    @Column(name = "APPLY_ROLES")
+    private Boolean applyRoles;
+
+    /** Checkpoint - index of next Account */
+    @Column(name = "ACCOUNT_INDEX")
+    private int accountIndex;
+
+    @Column(name = "ACCOUNTS_TOTAL")
+    private int accountsTotal;
+
+    @Column(name = "IDENTITIES_PROCESSED")
+    private int identitiesProcessed;
+
+    @Column(name = "IDENTITIES_FAILED")
+    private int identitiesFailed;
+
+    /** JSON array of first failures */
+    @Column(name = "FAILURES", columnDefinition = "text")
+    private String failures;
+
+    @Column(name = "ERROR", length = 1024)
+    private String error;
+
+    /** Node holding lease of running Job */
+    @Column(name = "NODE", length = 255)
+    private String node;
+
+    @Column(name = "HEARTBEAT")
+    private LocalDateTime heartbeat;
+
+    @Column(name = "CREATED")
+    private LocalDateTime created;
+
+    @Column(name = "FINISHED")
+    private LocalDateTime finished;
+
+}
@@ -0,0 +1,21 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.api.entity;
+
+/**
+ * Read-only projection of Identity for PIN login - {@link IdentityProjection} with driver's PIN and stored binary rights.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 18. 10. 2026 10:21:37
+ */
+public interface PinIdentityProjection extends IdentityProjection {
+
+    String getDriverPin();
+
+    String getBinaryRights();
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.api.entity;
+
+import java.io.Serializable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.springframework.data.annotation.Immutable;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Role Entity (realm and client roles of KeyCloak).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 15:48:12
+ */
+@Entity
+@Table(name = "KEYCLOAK_ROLE")
+@Data
+@EqualsAndHashCode(of = "id")
+@Immutable
+public class RoleEntity implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "ID", length = 36)
+    private String id;
+
+    @Column(name = "NAME", length = 255)
+    private String name;
+
+    @Column(name = "DESCRIPTION", length = 255)
+    private String description;
+
+    @Column(name = "REALM_ID", length = 255)
+    private String realm;
+
+    @Column(name = "CLIENT_ROLE")
+    private Boolean clientRole;
+
+}
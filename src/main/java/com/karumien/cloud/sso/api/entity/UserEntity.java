@@ -54,6 +54,12 @@ public class UserEntity implements Serializable {
 
     @Column(name = "EMAIL_VERIFIED")
     private Boolean emailVerified;
+
+    @Column(name = "ENABLED")
+    private Boolean enabled;
+
+    @Column(name = "CREATED_TIMESTAMP")
+    private Long createdTimestamp;
     
 }
 
@@ -6,11 +6,18 @@
  */
 package com.karumien.cloud.sso.api.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -44,4 +51,24 @@ public interface CredentialRepository extends JpaSpecificationExecutor<UserEntit
      */
     @Query("select ce.userId from CredentialEntity ce where ce.type = :type")
     List<String> findUserIdByCredentialsType(@Param("type") String type);
+
+    /**
+     * Search which of specified users have credentials of type.
+     * 
+     * @param userIds user primary keys (not empty)
+     * @param type credential type
+     * @return {@link List} of user IDs
+     */
+    @Query("select distinct ce.userId from CredentialEntity ce where ce.userId in :userIds and ce.type = :type")
+    List<String> findUserIdByCredentialsType(@Param("userIds") Collection<String> userIds, @Param("type") String type);
+
+    /**
+     * Stream all users with credentials of type (must be consumed in transaction).
+     * 
+     * @param type credential type
+     * @return {@link Stream} of user IDs
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select distinct ce.userId from CredentialEntity ce where ce.type = :type")
+    Stream<String> streamUserIdByCredentialsType(@Param("type") String type);
 }
@@ -34,4 +34,19 @@ public interface GroupEntityRepository extends JpaSpecificationExecutor<GroupEnt
     @Query("select ge.id from GroupEntity ge where ge.name = :name and ge.realm = :realm and (ge.parent is null or ge.parent = ' ')")
     List<String> findGroupIdsByName(@Param("name") String name, @Param("realm") String realm);
 
+    /**
+     * Fingerprint (MD5) of group subtree - names, structure and attributes of group and all its subgroups.
+     * 
+     * @param groupId
+     *            root group ID
+     * @return {@link String} hash changed by any change in subtree
+     */
+    @Query(nativeQuery = true, value = "with recursive tree(id) as (select cast(:groupId as varchar) "
+        + "union select g.id from keycloak_group g join tree t on g.parent_group = t.id) "
+        + "select md5(coalesce((select string_agg(g.id || '|' || coalesce(g.name, '') || '|' || coalesce(g.parent_group, ''), ',' order by g.id) "
+        + "from keycloak_group g where g.id in (select id from tree)), '') || '#' "
+        + "|| coalesce((select string_agg(a.group_id || '|' || a.name || '|' || coalesce(a.value, ''), ',' order by a.group_id, a.name, a.value) "
+        + "from group_attribute a where a.group_id in (select id from tree)), ''))")
+    String findTreeFingerprint(@Param("groupId") String groupId);
+
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.api.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.karumien.cloud.sso.api.entity.IdentityProjection;
+import com.karumien.cloud.sso.api.entity.PinIdentityProjection;
+import com.karumien.cloud.sso.api.entity.UserEntity;
+
+/**
+ * Read-only repository of {@link IdentityProjection}, one joined query per lookup.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 10:14:02
+ */
+@Repository
+public interface IdentityProjectionRepository extends org.springframework.data.repository.Repository<UserEntity, String> {
+
+    String IDENTITY_COLUMNS = "ue.id as \"identityId\", ue.username as \"username\", ue.first_name as \"firstName\", "
+        + "ue.last_name as \"lastName\", ue.email as \"email\", ue.email_verified as \"emailVerified\", "
+        + "ue.enabled as \"enabled\", ue.created_timestamp as \"createdTimestamp\", ";
+
+    String ATTRIBUTE_COLUMNS = "max(case when ua.name = 'accountNumber' then ua.value end) as \"accountNumber\", "
+        + "max(case when ua.name = 'contactNumber' then ua.value end) as \"contactNumber\", "
+        + "max(case when ua.name = 'nav4Id' then ua.value end) as \"nav4Id\", "
+        + "max(case when ua.name = 'phone' then ua.value end) as \"phone\", "
+        + "max(case when ua.name = 'note' then ua.value end) as \"note\", "
+        + "max(case when ua.name = 'locale' then ua.value end) as \"locale\", "
+        + "max(case when ua.name = 'lastLogin' then ua.value end) as \"lastLogin\", "
+        + "max(case when ua.name = 'lastLogout' then ua.value end) as \"lastLogout\", "
+        + "max(case when ua.name = 'lastLoginError' then ua.value end) as \"lastLoginError\" ";
+
+    String CREDENTIALS_COLUMN = "exists (select 1 from credential c where c.user_id = ue.id and c.type = 'password') as \"hasCredentials\" ";
+
+    String SELECT_IDENTITY = "select " + IDENTITY_COLUMNS + ATTRIBUTE_COLUMNS + ", " + CREDENTIALS_COLUMN
+        + "from user_entity ue left join user_attribute ua on ua.user_id = ue.id ";
+
+    /** Driven by matching attribute rows, attributes pivoted per row by lateral subquery (no aggregation/sort of whole result) */
+    String STREAM_IDENTITY = "select " + IDENTITY_COLUMNS + "attrs.*, " + CREDENTIALS_COLUMN
+        + "from user_attribute a join user_entity ue on ue.id = a.user_id "
+        + "cross join lateral (select " + ATTRIBUTE_COLUMNS + "from user_attribute ua where ua.user_id = ue.id) attrs ";
+
+    /** Rows per round-trip of export cursor */
+    String STREAM_FETCH_SIZE = "1000";
+
+    String GROUP_BY_IDENTITY = " group by ue.id, ue.username, ue.first_name, ue.last_name, ue.email, "
+        + "ue.email_verified, ue.enabled, ue.created_timestamp";
+
+    /**
+     * Search Identities by User's IDs.
+     *
+     * @param userIds
+     *            User's IDs (not empty)
+     * @return {@link List} of {@link IdentityProjection}
+     */
+    @Query(nativeQuery = true, value = SELECT_IDENTITY + "where ue.id in (:userIds)" + GROUP_BY_IDENTITY)
+    List<IdentityProjection> findByIds(@Param("userIds") Collection<String> userIds);
+
+    /**
+     * Search Identities by username.
+     *
+     * @param realm
+     *            for specific realm
+     * @param username
+     *            specific username
+     * @return {@link List} of {@link IdentityProjection}
+     */
+    @Query(nativeQuery = true, value = SELECT_IDENTITY + "where ue.realm_id = :realm and ue.username = :username" + GROUP_BY_IDENTITY)
+    List<IdentityProjection> findByUsername(@Param("realm") String realm, @Param("username") String username);
+
+    /**
+     * Identity with driver's PIN and stored binary rights by username (one query for PIN login).
+     *
+     * @param realm
+     *            for specific realm
+     * @param username
+     *            specific username
+     * @return {@link Optional} of {@link PinIdentityProjection}
+     */
+    @Query(nativeQuery = true, value = "select " + IDENTITY_COLUMNS + ATTRIBUTE_COLUMNS + ", "
+        + "max(case when ua.name = 'driverPin' then ua.value end) as \"driverPin\", "
+        + "max(case when ua.name = 'binaryRights' then ua.value end) as \"binaryRights\", " + CREDENTIALS_COLUMN
+        + "from user_entity ue left join user_attribute ua on ua.user_id = ue.id "
+        + "where ue.realm_id = :realm and ue.username = :username" + GROUP_BY_IDENTITY)
+    Optional<PinIdentityProjection> findPinIdentityByUsername(@Param("realm") String realm, @Param("username") String username);
+
+    /**
+     * Search Identities by email.
+     *
+     * @param realm
+     *            for specific realm
+     * @param email
+     *            specific email
+     * @return {@link List} of {@link IdentityProjection}
+     */
+    @Query(nativeQuery = true, value = SELECT_IDENTITY + "where ue.realm_id = :realm and ue.email = :email" + GROUP_BY_IDENTITY)
+    List<IdentityProjection> findByEmail(@Param("realm") String realm, @Param("email") String email);
+
+    /**
+     * Search Identities by UserAttribute name and value.
+     *
+     * @param attribute
+     *            name ie contactNumber
+     * @param value
+     *            specific value of attribute
+     * @return {@link List} of {@link IdentityProjection}
+     */
+    @Query(nativeQuery = true, value = SELECT_IDENTITY
+        + "where ue.id in (select a.user_id from user_attribute a where a.name = :attribute and a.value = :value)" + GROUP_BY_IDENTITY)
+    List<IdentityProjection> findByAttribute(@Param("attribute") String attribute, @Param("value") String value);
+
+    /**
+     * Forward-only cursor of Identities by UserAttribute name and value, unordered
+     * (first row is returned without reading whole result, must be consumed in transaction).
+     *
+     * @param attribute
+     *            name ie accountNumber
+     * @param value
+     *            specific value of attribute
+     * @return {@link Stream} of {@link IdentityProjection}
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(nativeQuery = true, value = STREAM_IDENTITY + "where a.name = :attribute and a.value = :value")
+    Stream<IdentityProjection> streamByAttribute(@Param("attribute") String attribute, @Param("value") String value);
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.api.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.karumien.cloud.sso.api.entity.JobEntity;
+
+/**
+ * Repository for operations on {@link JobEntity}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 22:12:30
+ */
+@Repository
+public interface JobEntityRepository extends JpaRepository<JobEntity, String> {
+
+    /**
+     * Queued Jobs and running Jobs with expired lease (node stopped), oldest first.
+     *
+     * @param expired
+     *            heartbeat older than expired means lost lease
+     * @param page
+     *            max count of Jobs
+     * @return {@link List} of Job IDs
+     */
+    @Query("select j.id from JobEntity j where j.state = 'QUEUED' or (j.state = 'RUNNING' and j.heartbeat < :expired) order by j.created")
+    List<String> findRunnableIds(@Param("expired") LocalDateTime expired, Pageable page);
+
+    /**
+     * Take lease of Job when it is still runnable (only one node wins), own transaction also after commit of caller.
+     *
+     * @return 1 when lease was taken
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("update JobEntity j set j.state = 'RUNNING', j.node = :node, j.heartbeat = :now "
+        + "where j.id = :id and (j.state = 'QUEUED' or (j.state = 'RUNNING' and j.heartbeat < :expired))")
+    int claim(@Param("id") String id, @Param("node") String node, @Param("now") LocalDateTime now, @Param("expired") LocalDateTime expired);
+
+    /**
+     * Extend lease of running Job.
+     *
+     * @return 0 when lease was lost (other node took Job)
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("update JobEntity j set j.heartbeat = :now where j.id = :id and j.node = :node and j.state = 'RUNNING'")
+    int heartbeat(@Param("id") String id, @Param("node") String node, @Param("now") LocalDateTime now);
+
+    /**
+     * Checkpoint progress of running Job after Account, only while node still owns lease.
+     *
+     * @return 0 when lease was lost (other node took Job)
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("update JobEntity j set j.accountIndex = :accountIndex, j.identitiesProcessed = :processed, j.identitiesFailed = :failed, "
+        + "j.failures = :failures, j.heartbeat = :now where j.id = :id and j.node = :node and j.state = 'RUNNING'")
+    int checkpoint(@Param("id") String id, @Param("node") String node, @Param("accountIndex") int accountIndex,
+        @Param("processed") int processed, @Param("failed") int failed, @Param("failures") String failures, @Param("now") LocalDateTime now);
+
+    /**
+     * Finish running Job, only while node still owns lease.
+     *
+     * @return 0 when lease was lost (other node took Job)
+     */
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("update JobEntity j set j.state = :state, j.error = :error, j.finished = :now "
+        + "where j.id = :id and j.node = :node and j.state = 'RUNNING'")
+    int finish(@Param("id") String id, @Param("node") String node, @Param("state") String state, @Param("error") String error,
+        @Param("now") LocalDateTime now);
+
+}
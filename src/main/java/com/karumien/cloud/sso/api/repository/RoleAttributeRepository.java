@@ -35,4 +35,15 @@ public interface RoleAttributeRepository extends JpaSpecificationExecutor<RoleAt
     @Query("select ua.value from RoleAttribute ua where ua.name = 'binaryMask' and ua.roleId = :roleId")
     List<String> findBinaryMaskForRole(@Param("roleId") String roleId);
 
+    /**
+     * All attributes of realm roles in one query.
+     * 
+     * @param realm
+     *            for specific realm
+     * @return {@link List} of [Role ID, attribute name, value]
+     */
+    @Query("select ra.roleId, ra.name, ra.value from RoleAttribute ra, RoleEntity r where ra.roleId = r.id "
+        + "and r.realm = :realm and r.clientRole = false")
+    List<Object[]> findRealmRoleAttributes(@Param("realm") String realm);
+
 }
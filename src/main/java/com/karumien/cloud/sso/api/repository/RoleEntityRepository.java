@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.api.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.karumien.cloud.sso.api.entity.RoleEntity;
+
+/**
+ * Repository for operations on {@link RoleEntity}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 16:24:37
+ */
+@Repository
+public interface RoleEntityRepository extends JpaRepository<RoleEntity, String> {
+
+    /**
+     * All realm roles ordered by name.
+     * 
+     * @param realm
+     *            for specific realm
+     * @return {@link List} of {@link RoleEntity}
+     */
+    @Query("select r from RoleEntity r where r.realm = :realm and r.clientRole = false order by r.name")
+    List<RoleEntity> findRealmRoles(@Param("realm") String realm);
+
+    /**
+     * All composite edges of realm and client roles of realm in one query (whole graph, realm roles could be
+     * inherited through composite client roles).
+     * 
+     * @param realm
+     *            for specific realm
+     * @return {@link List} of [composite Role ID, child Role ID, child Role name, child is client role]
+     */
+    @Query(nativeQuery = true, value = "select c.composite, c.child_role, ch.name, ch.client_role from composite_role c "
+        + "join keycloak_role r on r.id = c.composite join keycloak_role ch on ch.id = c.child_role "
+        + "where r.realm_id = :realm or r.client in (select cl.id from client cl where cl.realm_id = :realm)")
+    List<Object[]> findComposites(@Param("realm") String realm);
+
+    /**
+     * Direct realm role mappings of Users, own and inherited from groups (including parent groups).
+     * 
+     * @param userIds
+     *            User's IDs (not empty)
+     * @return {@link List} of [User ID, Role ID]
+     */
+    @Query(nativeQuery = true, value = "with recursive memberships(user_id, group_id) as ("
+        + "select ugm.user_id, ugm.group_id from user_group_membership ugm where ugm.user_id in (:userIds) "
+        + "union select m.user_id, g.parent_group from keycloak_group g join memberships m on g.id = m.group_id "
+        + "where g.parent_group is not null and g.parent_group <> ' ') "
+        + "select urm.user_id, urm.role_id from user_role_mapping urm where urm.user_id in (:userIds) "
+        + "union select m.user_id, grm.role_id from memberships m join group_role_mapping grm on grm.group_id = m.group_id")
+    List<Object[]> findRoleMappingsByUserIds(@Param("userIds") Collection<String> userIds);
+
+    /**
+     * Direct realm role mappings of group.
+     * 
+     * @param groupId
+     *            Group ID
+     * @return {@link List} of Role IDs
+     */
+    @Query(nativeQuery = true, value = "select grm.role_id from group_role_mapping grm where grm.group_id = :groupId")
+    List<String> findRoleIdsByGroupId(@Param("groupId") String groupId);
+
+    /**
+     * Realm role mappings of group and all its parent groups.
+     * 
+     * @param groupId
+     *            Group ID
+     * @return {@link List} of Role IDs
+     */
+    @Query(nativeQuery = true, value = "with recursive ancestors(group_id) as (select cast(:groupId as varchar) "
+        + "union select g.parent_group from keycloak_group g join ancestors a on g.id = a.group_id "
+        + "where g.parent_group is not null and g.parent_group <> ' ') "
+        + "select distinct grm.role_id from group_role_mapping grm where grm.group_id in (select group_id from ancestors)")
+    List<String> findInheritedRoleIdsByGroupId(@Param("groupId") String groupId);
+
+}
@@ -6,11 +6,18 @@
  */
 package com.karumien.cloud.sso.api.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -49,4 +56,37 @@ public interface UserAttributeRepository extends JpaSpecificationExecutor<UserAt
     @Query("select ua.value from UserAttribute ua where ua.name = :attribute and ua.userId = :userId")
     List<String> findValueByAttributeOfUserId(@Param("attribute") String attribute, @Param("userId") String userId);
 
+    /**
+     * Search all UserAttributes of specified Users.
+     * 
+     * @param userIds
+     *            User's IDs (not empty)
+     * @return {@link List} of rows [userId, name, value]
+     */
+    @Query("select ua.userId, ua.name, ua.value from UserAttribute ua where ua.userId in :userIds")
+    List<Object[]> findAttributesByUserIds(@Param("userIds") Collection<String> userIds);
+
+    /**
+     * Search specified UserAttributes of specified Users.
+     * 
+     * @param userIds
+     *            User's IDs (not empty)
+     * @param attributes
+     *            attribute names
+     * @return {@link List} of rows [userId, name, value]
+     */
+    @Query("select ua.userId, ua.name, ua.value from UserAttribute ua where ua.userId in :userIds and ua.name in :attributes")
+    List<Object[]> findAttributesByUserIds(@Param("userIds") Collection<String> userIds, @Param("attributes") Collection<String> attributes);
+
+    /**
+     * Stream all UserAttributes with specified names (must be consumed in transaction).
+     * 
+     * @param attributes
+     *            attribute names
+     * @return {@link Stream} of rows [userId, name, value]
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select ua.userId, ua.name, ua.value from UserAttribute ua where ua.name in :attributes")
+    Stream<Object[]> streamAttributes(@Param("attributes") Collection<String> attributes);
+
 }
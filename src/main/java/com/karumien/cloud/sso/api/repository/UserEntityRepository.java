@@ -6,11 +6,18 @@
  */
 package com.karumien.cloud.sso.api.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -48,4 +55,47 @@ public interface UserEntityRepository extends JpaSpecificationExecutor<UserEntit
      */
     @Query("select ue.userId from UserEntity ue where ue.realm = :realm and ue.username = :username")
     List<String> findUserIdsByUsername(@Param("realm") String realm, @Param("username") String username);
+
+    /**
+     * Stream business keys of all Users in realm (must be consumed in transaction).
+     * 
+     * @param realm
+     *            for specific realm
+     * @return {@link Stream} of rows [userId, username, email]
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select ue.userId, ue.username, ue.email from UserEntity ue where ue.realm = :realm")
+    Stream<Object[]> streamUserKeys(@Param("realm") String realm);
+
+    /**
+     * Search business keys of specified Users.
+     * 
+     * @param userIds
+     *            User's IDs (not empty)
+     * @return {@link List} of rows [userId, username, email]
+     */
+    @Query("select ue.userId, ue.username, ue.email from UserEntity ue where ue.userId in :userIds")
+    List<Object[]> findUserKeys(@Param("userIds") Collection<String> userIds);
+
+    /**
+     * Returns creation time of the newest User in realm.
+     * 
+     * @param realm
+     *            for specific realm
+     * @return {@link Long} timestamp in millis or {@code null} when realm is empty
+     */
+    @Query("select max(ue.createdTimestamp) from UserEntity ue where ue.realm = :realm")
+    Long findMaxCreatedTimestamp(@Param("realm") String realm);
+
+    /**
+     * Search Users created since specified time.
+     * 
+     * @param realm
+     *            for specific realm
+     * @param timestamp
+     *            creation time in millis (inclusive)
+     * @return {@link List} of rows [userId, createdTimestamp]
+     */
+    @Query("select ue.userId, ue.createdTimestamp from UserEntity ue where ue.realm = :realm and ue.createdTimestamp >= :timestamp")
+    List<Object[]> findUsersCreatedSince(@Param("realm") String realm, @Param("timestamp") Long timestamp);
 }
@@ -0,0 +1,27 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception when no Job exists - {@link HttpStatus#GONE}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 22:14:02
+ */
+@ResponseStatus(HttpStatus.GONE)
+public class JobNotFoundException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JobNotFoundException(String jobId) {
+        super("Job not found: " + jobId);
+    }
+
+}
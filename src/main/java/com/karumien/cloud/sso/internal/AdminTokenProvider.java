@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.internal;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.karumien.cloud.sso.api.model.AuthorizationResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Holder of admin access token for KeyCloak Admin client - token is read without locking and refreshed in background
+ * before it reaches minimal validity (refresh token grant, password grant when refresh token is expired).
+ * <p>
+ * Registered to admin client as {@link ClientRequestFilter} after stock bearer filter, so it sets Authorization
+ * header of every admin request.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 21:04:12
+ */
+@Slf4j
+public class AdminTokenProvider implements ClientRequestFilter {
+
+    private final TokenGrantExecutor executor;
+
+    private final String clientId;
+
+    private final String username;
+
+    private final String password;
+
+    private final long minTokenValidity;
+
+    private final AtomicReference<AdminToken> token = new AtomicReference<>();
+
+    /**
+     * Provider of admin token.
+     *
+     * @param executor
+     *            token grants of admin realm
+     * @param clientId
+     *            admin client ID
+     * @param username
+     *            admin username
+     * @param password
+     *            admin password
+     * @param minTokenValidity
+     *            refresh token when it expires in less seconds
+     */
+    public AdminTokenProvider(TokenGrantExecutor executor, String clientId, String username, String password, long minTokenValidity) {
+        this.executor = executor;
+        this.clientId = clientId;
+        this.username = username;
+        this.password = password;
+        this.minTokenValidity = minTokenValidity;
+    }
+
+    /**
+     * Current valid admin access token (granted on first use or when background refresh did not succeed).
+     *
+     * @return encoded access token
+     */
+    public String getToken() {
+        AdminToken current = token.get();
+        if (current == null || current.isExpired(0)) {
+            synchronized (this) {
+                current = token.get();
+                if (current == null || current.isExpired(0)) {
+                    current = grant();
+                }
+            }
+        }
+        return current.getAccessToken();
+    }
+
+    /**
+     * Proactive refresh of admin token before it expires.
+     */
+    @Scheduled(fixedDelayString = "${keycloak.admin.token-check:5000}")
+    public void refresh() {
+        AdminToken current = token.get();
+        if (current == null || !current.isExpired(minTokenValidity)) {
+            return;
+        }
+        synchronized (this) {
+            if (token.get() != current) {
+                return;
+            }
+            try {
+                if (current.isRefreshExpired(minTokenValidity)) {
+                    grant();
+                } else {
+                    token.set(new AdminToken(executor.refreshToken(clientId, null, current.getRefreshToken())));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Admin token refresh failed: {}", e.getMessage());
+                try {
+                    grant();
+                } catch (RuntimeException ex) {
+                    log.error("Admin token grant failed: {}", ex.getMessage());
+                }
+            }
+        }
+    }
+
+    private AdminToken grant() {
+        AdminToken granted = new AdminToken(executor.password(clientId, null, username, password));
+        token.set(granted);
+        return granted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        requestContext.getHeaders().putSingle(HttpHeaders.AUTHORIZATION, "Bearer " + getToken());
+    }
+
+    /**
+     * Immutable granted token with absolute expirations.
+     */
+    private static final class AdminToken {
+
+        private final String accessToken;
+
+        private final String refreshToken;
+
+        private final long expiresAt;
+
+        private final long refreshExpiresAt;
+
+        private AdminToken(AuthorizationResponse response) {
+            long now = System.currentTimeMillis() / 1000;
+            this.accessToken = response.getAccessToken();
+            this.refreshToken = response.getRefreshToken();
+            this.expiresAt = now + (response.getExpiresIn() == null ? 0 : response.getExpiresIn());
+            this.refreshExpiresAt = refreshToken == null || response.getRefreshExpiresIn() == null ? 0 : now + response.getRefreshExpiresIn();
+        }
+
+        private String getAccessToken() {
+            return accessToken;
+        }
+
+        private String getRefreshToken() {
+            return refreshToken;
+        }
+
+        private boolean isExpired(long validity) {
+            return System.currentTimeMillis() / 1000 + validity >= expiresAt;
+        }
+
+        private boolean isRefreshExpired(long validity) {
+            return System.currentTimeMillis() / 1000 + validity >= refreshExpiresAt;
+        }
+    }
+}
@@ -1,145 +0,0 @@
-/*
- * Copyright (c) 2019-2029 Karumien s.r.o.
- *
- * Karumien s.r.o. is not responsible for defects arising from 
- * unauthorized changes to the source code.
- */
-package com.karumien.cloud.sso.internal;
-
-import static org.keycloak.OAuth2Constants.CLIENT_CREDENTIALS;
-import static org.keycloak.OAuth2Constants.CLIENT_ID;
-import static org.keycloak.OAuth2Constants.GRANT_TYPE;
-import static org.keycloak.OAuth2Constants.PASSWORD;
-import static org.keycloak.OAuth2Constants.REFRESH_TOKEN;
-import static org.keycloak.OAuth2Constants.REQUESTED_SUBJECT;
-import static org.keycloak.OAuth2Constants.SUBJECT_TOKEN;
-import static org.keycloak.OAuth2Constants.TOKEN_EXCHANGE_GRANT_TYPE;
-
-import javax.ws.rs.BadRequestException;
-import javax.ws.rs.core.Form;
-
-import org.jboss.resteasy.client.jaxrs.ResteasyClient;
-import org.jboss.resteasy.client.jaxrs.ResteasyWebTarget;
-import org.keycloak.admin.client.resource.BasicAuthFilter;
-import org.keycloak.admin.client.token.TokenService;
-import org.keycloak.common.util.Time;
-import org.keycloak.representations.AccessTokenResponse;
-
-/**
- * Added missing functionality of impersonate by login method.
- *
- * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
- * @since 1.0, 1. 10. 2019 23:27:38 
- */
-public class AdvancedTokenManager {
-
-    private static final long DEFAULT_MIN_VALIDITY = 30;
-
-    private AccessTokenResponse currentToken;
-    private long expirationTime;
-    private long minTokenValidity = DEFAULT_MIN_VALIDITY;
-    private final AdvancedTokenConfig config;
-    private final TokenService tokenService;
-    private final String accessTokenGrantType;
-    private final String authToken;
-
-    public AdvancedTokenManager(AdvancedTokenConfig config, ResteasyClient client, String authToken) {        
-        this.config = config;
-        this.authToken = authToken;
-        ResteasyWebTarget target = client.target(config.getServerUrl());
-        if (!config.isPublicClient()) {
-            target.register(new BasicAuthFilter(config.getClientId(), config.getClientSecret()));
-        }
-        this.tokenService = target.proxy(TokenService.class);
-        this.accessTokenGrantType = config.getGrantType();
-
-        if (CLIENT_CREDENTIALS.equals(accessTokenGrantType) && config.isPublicClient()) {
-            throw new IllegalArgumentException("Can't use " + GRANT_TYPE + "=" + CLIENT_CREDENTIALS + " with public client");
-        }
-    }
-
-    public String getAccessTokenString() {
-        return getAccessToken().getToken();
-    }
-
-    public synchronized AccessTokenResponse getAccessToken() {
-        if (currentToken == null) {
-            grantToken();
-        } else if (tokenExpired()) {
-            refreshToken();
-        }
-        return currentToken;
-    }
-
-    public AccessTokenResponse grantToken() {
-        Form form = new Form().param(GRANT_TYPE, accessTokenGrantType);
-        if (PASSWORD.equals(accessTokenGrantType)) {
-            form.param("username", config.getUsername())
-                .param("password", config.getPassword());
-        }
-
-        if (TOKEN_EXCHANGE_GRANT_TYPE.equals(accessTokenGrantType)) {
-            form.param(REQUESTED_SUBJECT, config.getUsername())
-                .param(CLIENT_ID, config.getClientId())
-                .param(SUBJECT_TOKEN, this.authToken);
-        }
-                
-        if (REFRESH_TOKEN.equals(accessTokenGrantType)) {
-            form.param(REFRESH_TOKEN, this.authToken);
-        }
-
-        if (config.isPublicClient()) {
-            form.param(CLIENT_ID, config.getClientId());
-        }
-
-        int requestTime = Time.currentTime();
-        synchronized (this) {
-            currentToken = tokenService.grantToken(config.getRealm(), form.asMap());
-            expirationTime = requestTime + currentToken.getExpiresIn();
-        }
-        return currentToken;
-    }
-
-    public synchronized AccessTokenResponse refreshToken() {
-        Form form = new Form().param(GRANT_TYPE, REFRESH_TOKEN)
-                              .param(REFRESH_TOKEN, currentToken.getRefreshToken());
-
-        if (config.isPublicClient()) {
-            form.param(CLIENT_ID, config.getClientId());
-        }
-
-        try {
-            int requestTime = Time.currentTime();
-
-            currentToken = tokenService.refreshToken(config.getRealm(), form.asMap());
-            expirationTime = requestTime + currentToken.getExpiresIn();
-            return currentToken;
-        } catch (BadRequestException e) {
-            return grantToken();
-        }
-    }
-
-    public synchronized void setMinTokenValidity(long minTokenValidity) {
-        this.minTokenValidity = minTokenValidity;
-    }
-
-    private synchronized boolean tokenExpired() {
-        return (Time.currentTime() + minTokenValidity) >= expirationTime;
-    }
-
-    /**
-     * Invalidates the current token, but only when it is equal to the token passed as an argument.
-     *
-     * @param token the token to invalidate (cannot be null).
-     */
-    public synchronized void invalidate(String token) {
-        if (currentToken == null) {
-            return; // There's nothing to invalidate.
-        }
-        if (token.equals(currentToken.getToken())) {
-            // When used next, this cause a refresh attempt, that in turn will cause a grant attempt if refreshing fails.
-            expirationTime = -1;
-        }
-    }
-
-}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.internal;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.keycloak.common.VerificationException;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Local verification of realm access tokens (JWS) - signature, expiry, issuer and audience without call of KeyCloak.
+ * <p>
+ * {@link Signature} verifiers are initialized once per key ID and thread (verifiers of keys removed from realm are
+ * dropped when new key is used), verified tokens are remembered by SHA-256 hash in bounded LRU cache until they expire.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 19:41:08
+ */
+public class LocalTokenVerifier {
+
+    private static final Map<String, String> ALGORITHMS = new HashMap<>();
+
+    static {
+        ALGORITHMS.put("RS256", "SHA256withRSA");
+        ALGORITHMS.put("RS384", "SHA384withRSA");
+        ALGORITHMS.put("RS512", "SHA512withRSA");
+    }
+
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT = new TypeReference<Map<String, Object>>() { };
+
+    private final Function<String, Optional<PublicKey>> keys;
+
+    private final Supplier<Set<String>> keyIds;
+
+    private final String issuer;
+
+    private final String audience;
+
+    private final long clockSkew;
+
+    private final ObjectMapper mapper;
+
+    /** Initialized verifiers by key ID (Signature is not thread safe) */
+    private final ThreadLocal<Map<String, KeyVerifier>> verifiers = ThreadLocal.withInitial(HashMap::new);
+
+    private final ThreadLocal<MessageDigest> digest = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    /** Claims of verified tokens by hash of token */
+    private final Map<String, Map<String, Object>> verified;
+
+    /**
+     * Verifier of tokens.
+     *
+     * @param keys
+     *            signing keys of realm by kid
+     * @param keyIds
+     *            current kids of realm (verifiers of other keys are dropped)
+     * @param issuer
+     *            expected issuer (iss)
+     * @param audience
+     *            expected audience (aud), not checked when empty
+     * @param clockSkew
+     *            tolerance of exp/nbf in seconds
+     * @param cacheSize
+     *            max count of remembered verified tokens
+     * @param mapper
+     *            JSON mapper
+     */
+    public LocalTokenVerifier(Function<String, Optional<PublicKey>> keys, Supplier<Set<String>> keyIds, String issuer, String audience,
+            long clockSkew, int cacheSize, ObjectMapper mapper) {
+        this.keys = keys;
+        this.keyIds = keyIds;
+        this.issuer = issuer;
+        this.audience = StringUtils.hasText(audience) ? audience : null;
+        this.clockSkew = clockSkew;
+        this.mapper = mapper;
+        this.verified = Collections.synchronizedMap(new LinkedHashMap<String, Map<String, Object>>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Verify token and return its claims.
+     *
+     * @param token
+     *            encoded access token
+     * @return {@link Map} of claims of valid token
+     * @throws VerificationException
+     *             when token is not valid (malformed, unknown key, bad signature, expired, other issuer or audience)
+     */
+    public Map<String, Object> verify(String token) throws VerificationException {
+
+        if (token == null) {
+            throw new VerificationException("Token is empty");
+        }
+
+        String hash = Base64.getEncoder().encodeToString(digest.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+        Map<String, Object> claims = verified.get(hash);
+        if (claims != null) {
+            checkTime(claims);
+            return claims;
+        }
+
+        String[] parts = token.split("\\.");
+        if (parts.length != 3) {
+            throw new VerificationException("Token is not JWS");
+        }
+
+        Map<String, Object> header = json(parts[0]);
+        String algorithm = ALGORITHMS.get(header.get("alg"));
+        if (algorithm == null) {
+            throw new VerificationException("Unsupported algorithm " + header.get("alg"));
+        }
+
+        String kid = (String) header.get("kid");
+        PublicKey key = keys.apply(kid).orElseThrow(() -> new VerificationException("Unknown key " + kid));
+        if (!verifySignature(kid, algorithm, key, parts)) {
+            throw new VerificationException("Invalid signature");
+        }
+
+        claims = Collections.unmodifiableMap(json(parts[1]));
+        checkTime(claims);
+
+        if (issuer != null && !issuer.equals(claims.get("iss"))) {
+            throw new VerificationException("Invalid issuer " + claims.get("iss"));
+        }
+
+        Object aud = claims.get("aud");
+        if (audience != null && !(audience.equals(aud) || aud instanceof Collection && ((Collection<?>) aud).contains(audience))) {
+            throw new VerificationException("Invalid audience " + aud);
+        }
+
+        Object typ = claims.get("typ");
+        if (typ != null && !"Bearer".equals(typ)) {
+            throw new VerificationException("Not access token " + typ);
+        }
+
+        verified.put(hash, claims);
+        return claims;
+    }
+
+    private boolean verifySignature(String kid, String algorithm, PublicKey key, String[] parts) throws VerificationException {
+        Map<String, KeyVerifier> current = verifiers.get();
+        try {
+            // decoded before update, malformed signature must not leave partial update in cached verifier
+            byte[] signature = Base64.getUrlDecoder().decode(parts[2]);
+            KeyVerifier verifier = current.get(kid);
+            if (verifier == null || !verifier.key.equals(key) || !verifier.algorithm.equals(algorithm)) {
+                // new or rotated key, drop verifiers of keys removed from realm
+                current.keySet().retainAll(keyIds.get());
+                verifier = new KeyVerifier(algorithm, key);
+                current.put(kid, verifier);
+            }
+            // verify() resets verifier for next use
+            verifier.signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            return verifier.signature.verify(signature);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            // state of verifier is unknown after failure
+            current.remove(kid);
+            throw new VerificationException("Invalid signature", e);
+        }
+    }
+
+    private void checkTime(Map<String, Object> claims) throws VerificationException {
+        long now = System.currentTimeMillis() / 1000;
+
+        Object exp = claims.get("exp");
+        if (!(exp instanceof Number) || ((Number) exp).longValue() + clockSkew < now) {
+            throw new VerificationException("Token is expired");
+        }
+
+        Object nbf = claims.get("nbf");
+        if (nbf instanceof Number && ((Number) nbf).longValue() > 0 && ((Number) nbf).longValue() - clockSkew > now) {
+            throw new VerificationException("Token is not active yet");
+        }
+    }
+
+    private Map<String, Object> json(String part) throws VerificationException {
+        try {
+            return mapper.readValue(Base64.getUrlDecoder().decode(part), JSON_OBJECT);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new VerificationException("Malformed token", e);
+        }
+    }
+
+    /**
+     * Count of initialized verifiers of current thread.
+     *
+     * @return count of verifiers
+     */
+    int verifiers() {
+        return verifiers.get().size();
+    }
+
+    /**
+     * Initialized verifier of one key.
+     */
+    private static final class KeyVerifier {
+
+        private final String algorithm;
+
+        private final PublicKey key;
+
+        private final Signature signature;
+
+        private KeyVerifier(String algorithm, PublicKey key) throws GeneralSecurityException {
+            this.algorithm = algorithm;
+            this.key = key;
+            this.signature = Signature.getInstance(algorithm);
+            this.signature.initVerify(key);
+        }
+    }
+}
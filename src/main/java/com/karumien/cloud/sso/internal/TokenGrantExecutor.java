@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.internal;
+
+import static org.keycloak.OAuth2Constants.CLIENT_CREDENTIALS;
+import static org.keycloak.OAuth2Constants.CLIENT_ID;
+import static org.keycloak.OAuth2Constants.CLIENT_SECRET;
+import static org.keycloak.OAuth2Constants.GRANT_TYPE;
+import static org.keycloak.OAuth2Constants.PASSWORD;
+import static org.keycloak.OAuth2Constants.REFRESH_TOKEN;
+import static org.keycloak.OAuth2Constants.REQUESTED_SUBJECT;
+import static org.keycloak.OAuth2Constants.SUBJECT_TOKEN;
+import static org.keycloak.OAuth2Constants.TOKEN_EXCHANGE_GRANT_TYPE;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.NotAuthorizedException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.karumien.cloud.sso.api.model.AuthorizationResponse;
+
+/**
+ * Stateless executor of token grants of realm (password, client_credentials, refresh_token and token-exchange).
+ * <p>
+ * One instance is shared by all logins: no locks and no token state, login is one form POST over shared pooled client
+ * with streaming parse of response. Errors of KeyCloak are thrown as {@link BadRequestException} (400),
+ * {@link NotAuthorizedException} (401) or {@link WebApplicationException} with buffered response body.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 20:31:47
+ */
+public class TokenGrantExecutor {
+
+    private static final String UTF_8 = "UTF-8";
+
+    private final WebTarget tokenEndpoint;
+
+    private final WebTarget logoutEndpoint;
+
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Executor of realm token endpoint.
+     *
+     * @param client
+     *            shared pooled client
+     * @param serverUrl
+     *            KeyCloak server URL
+     * @param realm
+     *            realm of tokens
+     * @param jsonFactory
+     *            factory of streaming parsers
+     */
+    public TokenGrantExecutor(Client client, String serverUrl, String realm, JsonFactory jsonFactory) {
+        WebTarget openid = client.target(serverUrl).path("/realms/{realm}/protocol/openid-connect").resolveTemplate("realm", realm);
+        this.tokenEndpoint = openid.path("token");
+        this.logoutEndpoint = openid.path("logout");
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Resource owner password grant.
+     *
+     * @param clientId
+     *            client ID
+     * @param clientSecret
+     *            secret of confidential client ({@code null} for public client)
+     * @param username
+     *            username
+     * @param password
+     *            password
+     * @return {@link AuthorizationResponse} tokens
+     */
+    public AuthorizationResponse password(String clientId, String clientSecret, String username, String password) {
+        StringBuilder form = form(PASSWORD, clientId, clientSecret);
+        param(form, "username", username);
+        param(form, PASSWORD, password);
+        return execute(form);
+    }
+
+    /**
+     * Client credentials grant (confidential client only).
+     *
+     * @param clientId
+     *            client ID
+     * @param clientSecret
+     *            secret of client
+     * @return {@link AuthorizationResponse} tokens
+     */
+    public AuthorizationResponse clientCredentials(String clientId, String clientSecret) {
+        if (clientSecret == null) {
+            throw new IllegalArgumentException("Can't use " + GRANT_TYPE + "=" + CLIENT_CREDENTIALS + " with public client");
+        }
+        return execute(form(CLIENT_CREDENTIALS, clientId, clientSecret));
+    }
+
+    /**
+     * Refresh token grant.
+     *
+     * @param clientId
+     *            client ID
+     * @param clientSecret
+     *            secret of confidential client ({@code null} for public client)
+     * @param refreshToken
+     *            refresh token
+     * @return {@link AuthorizationResponse} tokens
+     */
+    public AuthorizationResponse refreshToken(String clientId, String clientSecret, String refreshToken) {
+        StringBuilder form = form(REFRESH_TOKEN, clientId, clientSecret);
+        param(form, REFRESH_TOKEN, refreshToken);
+        return execute(form);
+    }
+
+    /**
+     * Token exchange grant (impersonation of user).
+     *
+     * @param clientId
+     *            client ID
+     * @param clientSecret
+     *            secret of confidential client ({@code null} for public client)
+     * @param subjectToken
+     *            token of impersonator
+     * @param requestedSubject
+     *            username of impersonated user
+     * @return {@link AuthorizationResponse} tokens
+     */
+    public AuthorizationResponse tokenExchange(String clientId, String clientSecret, String subjectToken, String requestedSubject) {
+        StringBuilder form = form(TOKEN_EXCHANGE_GRANT_TYPE, clientId, clientSecret);
+        param(form, REQUESTED_SUBJECT, requestedSubject);
+        param(form, SUBJECT_TOKEN, subjectToken);
+        return execute(form);
+    }
+
+    /**
+     * Logout of user session by refresh token.
+     *
+     * @param clientId
+     *            client ID
+     * @param clientSecret
+     *            secret of confidential client ({@code null} for public client)
+     * @param refreshToken
+     *            refresh token of session
+     */
+    public void logout(String clientId, String clientSecret, String refreshToken) {
+        StringBuilder form = new StringBuilder(256);
+        param(form, CLIENT_ID, clientId);
+        param(form, CLIENT_SECRET, clientSecret);
+        param(form, REFRESH_TOKEN, refreshToken);
+
+        Response response = logoutEndpoint.request().post(Entity.entity(form.toString(), MediaType.APPLICATION_FORM_URLENCODED_TYPE));
+        try {
+            if (response.getStatusInfo().getFamily() != Response.Status.Family.SUCCESSFUL) {
+                throw error(response);
+            }
+        } finally {
+            response.close();
+        }
+    }
+
+    private StringBuilder form(String grantType, String clientId, String clientSecret) {
+        StringBuilder form = new StringBuilder(256);
+        param(form, GRANT_TYPE, grantType);
+        param(form, CLIENT_ID, clientId);
+        param(form, CLIENT_SECRET, clientSecret);
+        return form;
+    }
+
+    private void param(StringBuilder form, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        try {
+            form.append(form.length() == 0 ? "" : "&").append(name).append('=').append(URLEncoder.encode(value, UTF_8));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private AuthorizationResponse execute(StringBuilder form) {
+
+        Response response = tokenEndpoint.request(MediaType.APPLICATION_JSON_TYPE)
+            .post(Entity.entity(form.toString(), MediaType.APPLICATION_FORM_URLENCODED_TYPE));
+        try {
+            if (response.getStatus() != Response.Status.OK.getStatusCode()) {
+                throw error(response);
+            }
+            try (InputStream stream = response.readEntity(InputStream.class)) {
+                return parse(stream);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Invalid token response", e);
+        } finally {
+            response.close();
+        }
+    }
+
+    private WebApplicationException error(Response response) {
+
+        Response error = Response.status(response.getStatus())
+            .type(response.getMediaType())
+            .entity(new ByteArrayInputStream(response.readEntity(byte[].class)))
+            .build();
+
+        switch (response.getStatus()) {
+        case 400:
+            return new BadRequestException(error);
+        case 401:
+            return new NotAuthorizedException(error);
+        default:
+            return new WebApplicationException(error);
+        }
+    }
+
+    private AuthorizationResponse parse(InputStream stream) throws IOException {
+
+        AuthorizationResponse auth = new AuthorizationResponse();
+        try (JsonParser parser = jsonFactory.createParser(stream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Token response is not object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                case "access_token":
+                    auth.setAccessToken(parser.getValueAsString());
+                    break;
+                case "expires_in":
+                    auth.setExpiresIn(parser.getValueAsLong());
+                    break;
+                case "refresh_token":
+                    auth.setRefreshToken(parser.getValueAsString());
+                    break;
+                case "refresh_expires_in":
+                    auth.setRefreshExpiresIn(parser.getValueAsLong());
+                    break;
+                case "token_type":
+                    auth.setTokenType(parser.getValueAsString());
+                    break;
+                default:
+                    parser.skipChildren();
+                    break;
+                }
+            }
+        }
+        return auth;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.internal;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Guard of KeyCloak clients - remote call inside of open transaction holds pooled DB connection for whole HTTP call.
+ * <p>
+ * Filter runs on thread of caller, so it sees transaction of calling service method.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 22:58:34
+ */
+@Slf4j
+public class TransactionGuardFilter implements ClientRequestFilter {
+
+    /**
+     * Reaction on KeyCloak call in transaction.
+     */
+    public enum Mode {
+        /** Guard disabled */
+        OFF,
+        /** Log warning */
+        WARN,
+        /** Fail call by {@link IllegalStateException} (tests) */
+        FAIL
+    }
+
+    private final Mode mode;
+
+    /**
+     * Guard of KeyCloak calls.
+     *
+     * @param mode
+     *            reaction on call in transaction
+     */
+    public TransactionGuardFilter(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+
+        if (mode == Mode.OFF || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+
+        String message = "KeyCloak call " + requestContext.getMethod() + " " + requestContext.getUri().getPath()
+            + " inside of transaction " + TransactionSynchronizationManager.getCurrentTransactionName();
+        if (mode == Mode.FAIL) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+}
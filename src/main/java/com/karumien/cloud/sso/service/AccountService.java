@@ -6,9 +6,12 @@
  */
 package com.karumien.cloud.sso.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.springframework.data.domain.Pageable;
@@ -24,6 +27,8 @@ import com.karumien.cloud.sso.api.model.IdentityRoleInfo;
 import com.karumien.cloud.sso.api.model.IdentityState;
 import com.karumien.cloud.sso.api.model.ModuleInfo;
 import com.karumien.cloud.sso.api.model.RoleInfo;
+import com.karumien.cloud.sso.util.KeysetPage;
+import com.karumien.cloud.sso.util.KeysetRequest;
 
 /**
  * Service provides scenarios for Account's management.
@@ -35,6 +40,15 @@ public interface AccountService {
 
     AccountInfo createAccount(AccountInfo account);
 
+    /**
+     * Create not existing Accounts in one JDBC batch, existing Accounts are not changed.
+     *
+     * @param accounts
+     *            Accounts to create (distinct account numbers)
+     * @return {@link Set} account numbers of created Accounts
+     */
+    Set<String> createAccounts(Collection<AccountInfo> accounts);
+
     AccountInfo getAccount(String accountNumber);
 
     AccountInfo getAccountByCompRegNo(String compRegNo);
@@ -60,6 +74,36 @@ public interface AccountService {
      */
     List<IdentityInfo> getAccountIdentities(String accountNumber, String roleId, List<String> contactNumber, boolean withLoginInfo);
 
+    /**
+     * Return one keyset (cursor) page of identidities that are under this account.
+     * <p>
+     * Filter by roleId is applied on returned page, so page can contain less identities than requested limit.
+     * 
+     * @param accountNumber
+     *            Account CRM ID
+     * @param roleId
+     *            Filtered by roleId
+     * @param withLoginInfo
+     *            attach informations about login
+     * @param page
+     *            keyset page request
+     * @return {@link KeysetPage} of {@link IdentityInfo}
+     */
+    KeysetPage<IdentityInfo> getAccountIdentities(String accountNumber, String roleId, boolean withLoginInfo, KeysetRequest page);
+
+    /**
+     * Export all identidities that are under this account one by one (unordered), 
+     * without materializing whole list in memory.
+     * 
+     * @param accountNumber
+     *            Account CRM ID
+     * @param withLoginInfo
+     *            attach informations about login
+     * @param consumer
+     *            consumer of each exported {@link IdentityInfo}
+     */
+    void exportAccountIdentities(String accountNumber, boolean withLoginInfo, Consumer<IdentityInfo> consumer);
+
     /**
      * Return {@link IdentityInfo} for account and contact ID
      * 
@@ -93,6 +137,15 @@ public interface AccountService {
      */
     List<ModuleInfo> getAccountHierarchy(String accountNumber);
 
+    /**
+     * Returns version of hierarchy for current locale.
+     * 
+     * @param accountNumber
+     *            Account CRM ID
+     * @return {@link String} version usable as ETag
+     */
+    String getAccountHierarchyVersion(String accountNumber);
+
     /**
      * Return roles for account (global and custom)
      * 
@@ -27,17 +27,23 @@
 package com.karumien.cloud.sso.service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -59,9 +65,14 @@ import com.karumien.cloud.sso.exceptions.AccountDeleteException;
 import com.karumien.cloud.sso.exceptions.AccountDuplicateException;
 import com.karumien.cloud.sso.exceptions.AccountNotFoundException;
 import com.karumien.cloud.sso.exceptions.IdentityNotFoundException;
+import com.karumien.cloud.sso.util.KeysetPage;
+import com.karumien.cloud.sso.util.KeysetRequest;
 
 /**
  * Implementation {@link AccountService} for Account Management.
+ * <p>
+ * Methods calling KeyCloak (or mapping identities) run without transaction, every query holds DB connection only for
+ * its own SQL.
  *
  * @author <a href="viliam.litavec@karumien.com">Viliam Litavec</a>
  * @since 1.0, 22. 8. 2019 18:59:57
@@ -69,6 +80,10 @@ import com.karumien.cloud.sso.exceptions.IdentityNotFoundException;
 @Service
 public class AccountServiceImpl implements AccountService {
 
+    /** Concurrent insert of same Account is skipped (update count 0) */
+    private static final String INSERT_ACCOUNT = "insert into PLUGIN_ACCOUNT (id, name, comp_reg_no, contact_email, note, locale) "
+        + "values (?, ?, ?, ?, ?, ?) on conflict (id) do nothing";
+
     @Autowired
     private IdentityService identityService;
     
@@ -83,6 +98,12 @@ public class AccountServiceImpl implements AccountService {
     
     @Autowired
     private AccountEntityRepository accountEntityRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${onboarding.account-batch-size:500}")
+    private int accountBatchSize;
     
     /**
      * {@inheritDoc}
@@ -106,6 +127,43 @@ public class AccountServiceImpl implements AccountService {
         }
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public Set<String> createAccounts(Collection<AccountInfo> accounts) {
+
+        Set<String> existing = new HashSet<>();
+        accountEntityRepository.findAllById(accounts.stream().map(AccountInfo::getAccountNumber).collect(Collectors.toList()))
+            .forEach(account -> existing.add(account.getAccountNumber()));
+
+        List<AccountInfo> created = accounts.stream().filter(account -> !existing.contains(account.getAccountNumber()))
+            .collect(Collectors.toList());
+
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_ACCOUNT, created, accountBatchSize, (ps, account) -> {
+            ps.setString(1, account.getAccountNumber());
+            ps.setString(2, account.getName());
+            ps.setString(3, account.getCompRegNo());
+            ps.setString(4, account.getContactEmail());
+            ps.setString(5, account.getNote());
+            ps.setString(6, account.getLocale());
+        });
+
+        // driver could report SUCCESS_NO_INFO (-2) for rewritten batch, only 0 means skipped row
+        Set<String> result = new HashSet<>();
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 0) {
+                    result.add(created.get(index).getAccountNumber());
+                }
+                index++;
+            }
+        }
+        return result;
+    }
+
     private String patch(String oldValue, String newValue, UpdateType update) {
         return update == UpdateType.UPDATE || update == UpdateType.ADD && StringUtils.hasText(newValue) ? newValue : oldValue;
     }
@@ -193,7 +251,6 @@ public class AccountServiceImpl implements AccountService {
      * {@inheritDoc}
      */
     @Override
-    @Transactional(readOnly = true)
     public IdentityInfo getAccountIdentity(String accountNumber, String contactNumber, boolean withLoginInfo) {
         getAccount(accountNumber);
         IdentityInfo identity = identityService.getIdentity(contactNumber, withLoginInfo);
@@ -231,27 +288,58 @@ public class AccountServiceImpl implements AccountService {
      * {@inheritDoc}
      */
     @Override
-    @Transactional(readOnly = true)
     public List<IdentityInfo> getAccountIdentities(String accountNumber, String roleId, List<String> contactNumbers, boolean withLoginInfo) {
 
-        List<IdentityInfo> identities = getAccountIdentitiesIds(accountNumber, contactNumbers).stream()
-            .map(identityId -> identityService.findUserRepresentationById(identityId))
-            .filter(Optional::isPresent)
-            .map(Optional::get)
+        List<UserRepresentation> users = identityService.findUserRepresentationsByIds(getAccountIdentitiesIds(accountNumber, contactNumbers))
+            .values().stream()
             .filter(u -> searchService.getSimpleAttribute(u.getAttributes(), IdentityService.ATTR_ACCOUNT_NUMBER).isPresent()
                  && searchService.getSimpleAttribute(u.getAttributes(), IdentityService.ATTR_ACCOUNT_NUMBER).get().equals(accountNumber))
-            .filter(u -> !StringUtils.hasText(roleId) || roleService.getIdentityRoles(u).contains(roleId))
-            .map(user -> identityService.mapping(user, withLoginInfo))
             .collect(Collectors.toList());
         
-        return identities;
+        return identityService.mapping(filterByRole(users, roleId), withLoginInfo);
+    }
+
+    private List<UserRepresentation> filterByRole(List<UserRepresentation> users, String roleId) {
+
+        if (!StringUtils.hasText(roleId)) {
+            return users;
+        }
+
+        // effective roles of all identities at once
+        Map<String, List<String>> identityRoles = roleService.getIdentitiesRoles(
+            users.stream().map(UserRepresentation::getId).collect(Collectors.toList()));
+        return users.stream()
+            .filter(u -> identityRoles.getOrDefault(u.getId(), new ArrayList<>()).contains(roleId))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KeysetPage<IdentityInfo> getAccountIdentities(String accountNumber, String roleId, boolean withLoginInfo, KeysetRequest page) {
+
+        Map<IdentityPropertyType, String> searchFilter = new HashMap<>();
+        searchFilter.put(IdentityPropertyType.ATTR_ACCOUNT_NUMBER, accountNumber);
+
+        return searchService.findUserIds(searchFilter, page).map(userIds -> identityService.mapping(
+            filterByRole(new ArrayList<>(identityService.findUserRepresentationsByIds(userIds).values()), roleId), withLoginInfo));
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAccountIdentities(String accountNumber, boolean withLoginInfo, Consumer<IdentityInfo> consumer) {
+        searchService.streamIdentityProjections(IdentityPropertyType.ATTR_ACCOUNT_NUMBER, accountNumber,
+            projection -> consumer.accept(identityService.mapping(projection, withLoginInfo)));
+    }
+
     /**
      * {@inheritDoc}
      */
 	@Override
-	@Transactional(readOnly = true)	
 	public boolean deleteAccountIdentity(String accountNumber, String contactNumber) {
 	    getAccountIdentity(accountNumber, contactNumber, false);	    
 		identityService.deleteIdentity(contactNumber);
@@ -262,7 +350,6 @@ public class AccountServiceImpl implements AccountService {
 	 * {@inheritDoc}
 	 */
 	@Override
-	@Transactional(readOnly = true)    
 	public List<RoleInfo> getAccountRoles(String accountNumber) {
 	    getAccount(accountNumber);
 	    return groupService.getAccountRoles(accountNumber);
@@ -272,7 +359,6 @@ public class AccountServiceImpl implements AccountService {
 	 * {@inheritDoc}
 	 */
 	@Override
-	@Transactional(readOnly = true)    
 	public List<RoleRepresentation> getAccountRolesRepresentation(String accountNumber) {
 	    getAccount(accountNumber);
         return groupService.getAccountRolesRepresentation(accountNumber);
@@ -290,7 +376,6 @@ public class AccountServiceImpl implements AccountService {
 	 * {@inheritDoc}
 	 */
 	@Override
-	@Transactional(readOnly = true)    
 	public List<IdentityRoleInfo> getAccountIdentitiesRoles(String accountNumber, List<String> contactNumbers) {
 	    
         // TODO: https://jira.eurowag.com/browse/P572-313
@@ -300,13 +385,15 @@ public class AccountServiceImpl implements AccountService {
 	        
 	    List<IdentityRoleInfo> roles = new ArrayList<>();
 	    
-	    List<UserRepresentation> identities = getAccountIdentitiesIds(accountNumber, contactNumbers).stream()
-	        .map(identityId -> identityService.findUserRepresentationById(identityId))
-	        .filter(Optional::isPresent)
-	        .map(Optional::get)
+	    List<UserRepresentation> identities = identityService.findUserRepresentationsByIds(getAccountIdentitiesIds(accountNumber, contactNumbers))
+	        .values().stream()
 	        .filter(u -> searchService.getSimpleAttribute(u.getAttributes(), IdentityService.ATTR_ACCOUNT_NUMBER).isPresent()
 	                 && searchService.getSimpleAttribute(u.getAttributes(), IdentityService.ATTR_ACCOUNT_NUMBER).get().equals(accountNumber))
 	        .collect(Collectors.toList());
+
+	    List<String> identityIds = identities.stream().map(UserRepresentation::getId).collect(Collectors.toList());
+	    Set<String> withCredentials = searchService.findUserIdsWithCredentials(identityIds);
+	    Map<String, List<String>> identityRoles = roleService.getIdentitiesRoles(identityIds);
 	        
 	    for (UserRepresentation userRepresentation : identities) {
 
@@ -319,9 +406,9 @@ public class AccountServiceImpl implements AccountService {
                 role.setLocked(true);
             }
 
-            role.setState(identityService.mappingIdentityState(userRepresentation));
+            role.setState(identityService.mappingIdentityState(userRepresentation, withCredentials.contains(userRepresentation.getId())));
             
-	        role.setRoles(roleService.getIdentityRoles(userRepresentation).stream()
+	        role.setRoles(identityRoles.getOrDefault(userRepresentation.getId(), new ArrayList<>()).stream()
                 .filter(k -> accountRoles.contains(k))
                 .collect(Collectors.toList()));
 
@@ -379,7 +466,6 @@ public class AccountServiceImpl implements AccountService {
 	 * {@inheritDoc}
 	 */
 	@Override
-	@Transactional(readOnly = true)    
 	public IdentityState getIdentityState(String accountNumber, String contactNumber) {
 	    getAccount(accountNumber);
 	    return identityService.getIdentityState(contactNumber);
@@ -392,6 +478,14 @@ public class AccountServiceImpl implements AccountService {
     public List<ModuleInfo> getAccountHierarchy(String accountNumber) {
         return groupService.getAccountHierarchy(accountNumber);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getAccountHierarchyVersion(String accountNumber) {
+        return groupService.getAccountHierarchyVersion(accountNumber);
+    }
     
     /**
      * {@inheritDoc}
@@ -6,6 +6,10 @@
  */
 package com.karumien.cloud.sso.service;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
 import com.karumien.cloud.sso.api.model.AuthorizationResponse;
 import com.karumien.cloud.sso.api.model.IdentityInfo;
 import com.karumien.cloud.sso.api.model.PasswordPolicy;
@@ -19,6 +23,12 @@ import com.karumien.cloud.sso.api.model.UsernamePolicy;
  */
 public interface AuthService {
 
+    String INTROSPECT_ACTIVE = "active";
+
+    /** Claims of access token returned by introspection */
+    List<String> INTROSPECT_CLAIMS = Arrays.asList("sub", "exp", "iat", "iss", "aud", "azp", "scope", "session_state",
+        "preferred_username", "email", "name", "locale", "realm_access", "resource_access", "accountNumber", "contactNumber");
+
     /**
      * Returns public key from realm
      * 
@@ -26,6 +36,13 @@ public interface AuthService {
      */
     String getPublicKey();
 
+    /**
+     * Returns JWKS document of realm
+     * 
+     * @return String JSON Web Key Set
+     */
+    String getJwks();
+
     /**
      * Returns configuration of Password Policy
      * 
@@ -33,13 +50,31 @@ public interface AuthService {
      */
     PasswordPolicy getPasswordPolicy();
 
+    /**
+     * Reload cached Password Policy from KeyCloak, other instances of cluster are notified to reload it.
+     */
+    void refreshPasswordPolicy();
+
     /**
      * Logout user by token.
      * 
+     * @param clientId
+     *            client which issued token (default client when empty)
+     * @param clientSecret
+     *            secret of confidential client
      * @param token
      *            representation of token
      */
-    void logoutByToken(String token);
+    void logoutByToken(String clientId, String clientSecret, String token);
+
+    /**
+     * Local introspection of access token - signature by cached realm keys, expiry, issuer and audience.
+     * 
+     * @param token
+     *            encoded access token
+     * @return {@link Map} with {@code active} flag and claims of active token (RFC 7662)
+     */
+    Map<String, Object> introspect(String token);
 
     AuthorizationResponse loginByUsernamePassword(String clientId, String clientSecret, String username, String password);
 
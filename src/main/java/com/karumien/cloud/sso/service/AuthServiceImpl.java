@@ -6,43 +6,48 @@
  */
 package com.karumien.cloud.sso.service;
 
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
-import org.keycloak.OAuth2Constants;
+import javax.annotation.PostConstruct;
+
 import org.keycloak.admin.client.Keycloak;
-import org.keycloak.admin.client.KeycloakBuilder;
-import org.keycloak.admin.client.token.TokenManager;
-import org.keycloak.representations.AccessTokenResponse;
-import org.keycloak.representations.idm.UserRepresentation;
+import org.keycloak.common.VerificationException;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.karumien.cloud.sso.HazelcastConfiguration;
+import com.karumien.cloud.sso.HeaderLocaleResolver;
+import com.karumien.cloud.sso.api.entity.PinIdentityProjection;
 import com.karumien.cloud.sso.api.model.AuthorizationResponse;
-import com.karumien.cloud.sso.api.model.GrantType;
 import com.karumien.cloud.sso.api.model.IdentityInfo;
 import com.karumien.cloud.sso.api.model.PasswordPolicy;
 import com.karumien.cloud.sso.api.model.UsernamePolicy;
-import com.karumien.cloud.sso.exceptions.AttributeNotFoundException;
 import com.karumien.cloud.sso.exceptions.IdentityNotFoundException;
-import com.karumien.cloud.sso.internal.AdvancedTokenConfig;
-import com.karumien.cloud.sso.internal.AdvancedTokenManager;
+import com.karumien.cloud.sso.internal.LocalTokenVerifier;
+import com.karumien.cloud.sso.internal.TokenGrantExecutor;
+
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * Implementation of {@link AuthService} for authentication tokens management.
@@ -50,6 +55,7 @@ import com.karumien.cloud.sso.internal.AdvancedTokenManager;
  * @author <a href="viliam.litavec@karumien.com">Viliam Litavec</a>
  * @since 1.0, 13. 8. 2019 22:07:27
  */
+@Slf4j
 @Service
 public class AuthServiceImpl implements AuthService {
 
@@ -71,22 +77,50 @@ public class AuthServiceImpl implements AuthService {
     @Autowired
     private IdentityService identityService;
 
-    @Autowired
-    private RoleService roleService;
-   
     @Autowired
     private PasswordGeneratorService passwordGeneratorService;
 
-    protected AuthorizationResponse mapping(AccessTokenResponse token) {
-        
-        AuthorizationResponse auth = new AuthorizationResponse();
-        auth.setAccessToken(token.getToken());
-        auth.setExpiresIn(token.getExpiresIn());
-        auth.setRefreshToken(token.getRefreshToken());
-        auth.setRefreshExpiresIn(token.getRefreshExpiresIn());
-        auth.setTokenType(token.getTokenType());
-        
-        return auth;           
+    @Autowired
+    private RealmKeyService realmKeyService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private TokenGrantExecutor tokenGrantExecutor;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Value("${auth.introspect.issuer:}")
+    private String introspectIssuer;
+
+    @Value("${auth.introspect.audience:}")
+    private String introspectAudience;
+
+    @Value("${auth.introspect.clock-skew:30}")
+    private long introspectClockSkew;
+
+    @Value("${auth.introspect.cache-size:10000}")
+    private int introspectCacheSize;
+
+    private LocalTokenVerifier tokenVerifier;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    private ITopic<String> passwordPolicyChanges;
+
+    private volatile PasswordPolicyCatalog passwordPolicy;
+
+    @PostConstruct
+    public void init() {
+        tokenVerifier = new LocalTokenVerifier(realmKeyService::getKey, () -> realmKeyService.getKeys().getKeyIds(),
+            StringUtils.hasText(introspectIssuer) ? introspectIssuer : adminServerUrl + "/realms/" + realm,
+            introspectAudience, introspectClockSkew, introspectCacheSize, mapper);
+
+        passwordPolicyChanges = HazelcastConfiguration.invalidatingTopic(hazelcastInstance,
+            HazelcastConfiguration.TOPIC_PASSWORD_POLICY_CHANGES, () -> passwordPolicy = null);
     }
 
     protected static PublicKey toPublicKey(String publicKeyString) {
@@ -103,7 +137,6 @@ public class AuthServiceImpl implements AuthService {
     /**
      * {@inheritDoc}
      */
-    @SuppressWarnings("unchecked")
     @Override
     public String getPublicKey() {
 
@@ -128,22 +161,46 @@ public class AuthServiceImpl implements AuthService {
         // keys.getKeyMetadata().getKeys().forEach(key -> System.out.println(key.getStatus()));
         // keys.getKeyMetadata().getKeys().forEach(key -> System.out.println(key.getType()));
 
-        ObjectMapper om = new ObjectMapper();
-        Map<String, Object> realmInfo;
+        return realmKeyService.getKeys().getPublicKey();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getJwks() {
+        return realmKeyService.getKeys().getJwks();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Object> introspect(String token) {
+
+        Map<String, Object> introspection = new LinkedHashMap<>();
         try {
-            realmInfo = om.readValue(new URL(adminServerUrl + "/realms/" + realm).openStream(), Map.class);
-            return (String) realmInfo.get("public_key");
-        } catch (Exception e) {
-            throw new IllegalStateException("Can't retreive public key", e);
+            Map<String, Object> claims = tokenVerifier.verify(token);
+            introspection.put(INTROSPECT_ACTIVE, true);
+            introspection.put("username", claims.get("preferred_username"));
+            introspection.put("client_id", claims.get("azp"));
+            INTROSPECT_CLAIMS.stream().filter(claims::containsKey).forEach(claim -> introspection.put(claim, claims.get(claim)));
+        } catch (VerificationException e) {
+            log.debug("Token is not active: {}", e.getMessage());
+            introspection.put(INTROSPECT_ACTIVE, false);
         }
+        return introspection;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void logoutByToken(String token) {
-        keycloak.tokenManager().invalidate(token);
+    public void logoutByToken(String clientId, String clientSecret, String token) {
+        String client = StringUtils.hasText(clientId) ? clientId : this.clientId;
+        MDC.put("clientId", client);
+
+        tokenGrantExecutor.logout(client, clientSecret, token);
     }
 
     /**
@@ -155,12 +212,7 @@ public class AuthServiceImpl implements AuthService {
         MDC.put("clientId", client);
         MDC.put("usr", username);
         
-        TokenManager tokenManager = KeycloakBuilder.builder().serverUrl(adminServerUrl).realm(realm)
-            .clientId(client).clientSecret(clientSecret)
-            .username(username).password(password).grantType(GrantType.PASSWORD.toString())           
-            .build().tokenManager();
-            
-        return mapping(tokenManager.getAccessToken());            
+        return tokenGrantExecutor.password(client, clientSecret, username, password);
     }
     
     /**
@@ -170,11 +222,7 @@ public class AuthServiceImpl implements AuthService {
     public AuthorizationResponse loginByClientCredentials(String clientId, String clientSecret) {
         MDC.put("clientId", clientId);
 
-        TokenManager tokenManager = KeycloakBuilder.builder().serverUrl(adminServerUrl)
-            .realm(realm).clientId(clientId).clientSecret(clientSecret).grantType(GrantType.CLIENT_CREDENTIALS.toString())
-            .build().tokenManager();
-
-        return mapping(tokenManager.getAccessToken());            
+        return tokenGrantExecutor.clientCredentials(clientId, clientSecret);
     }
 
     /**
@@ -185,13 +233,7 @@ public class AuthServiceImpl implements AuthService {
         String client = StringUtils.hasText(clientId) ? clientId : this.clientId;
         MDC.put("clientId", client);
 
-        ResteasyClientBuilder clientBuilder = new ResteasyClientBuilder().connectionPoolSize(10);
-
-        AdvancedTokenManager tokenManager = new AdvancedTokenManager(
-                new AdvancedTokenConfig(this.adminServerUrl, realm, null, null, client, null, OAuth2Constants.REFRESH_TOKEN),
-                clientBuilder.build(), refreshToken);
-        
-        return mapping(tokenManager.getAccessToken());            
+        return tokenGrantExecutor.refreshToken(client, null, refreshToken);
     }
     
     /**
@@ -208,16 +250,16 @@ public class AuthServiceImpl implements AuthService {
             return null;
         }
             
-        UserRepresentation user = identityService.findIdentityByUsername(username).orElseThrow(() -> new IdentityNotFoundException("username " + username));
-        IdentityInfo identityInfo = identityService.mapping(user, false);
-        try {
-            if (pin.equals(identityService.getPinOfIdentityDriver(identityInfo.getContactNumber()).getPin())) {
-                identityInfo.setBinaryRights(roleService.getRolesBinary(user));
-                return identityInfo;
-            }
-        } catch (AttributeNotFoundException e) {
+        // one query of PIN, account and stored binary rights (kept by role changes), no KeyCloak call
+        PinIdentityProjection identity = searchService.findPinIdentity(username).orElseThrow(() -> new IdentityNotFoundException("username " + username));
+        if (identity.getDriverPin() == null
+                || !MessageDigest.isEqual(pin.getBytes(StandardCharsets.UTF_8), identity.getDriverPin().getBytes(StandardCharsets.UTF_8))) {
+            return null;
         }
-        return null;
+
+        IdentityInfo identityInfo = identityService.mapping(identity, false);
+        identityInfo.setBinaryRights(StringUtils.hasText(identity.getAccountNumber()) && identity.getBinaryRights() != null ? identity.getBinaryRights() : "");
+        return identityInfo;
     }
 
     /**
@@ -246,38 +288,46 @@ public class AuthServiceImpl implements AuthService {
      */
     @Override
     public PasswordPolicy getPasswordPolicy() {
+        return getPasswordPolicyCatalog().get(LocaleContextHolder.getLocale());
+    }
 
-        String policyDescription = keycloak.realm(realm).toRepresentation().getPasswordPolicy();
-
-        PasswordPolicy policy = new PasswordPolicy();
-        policy.setValue(policyDescription);
-        policy.setHashAlgorithm(extract("hashAlgorithm", policyDescription, String.class));
-        policy.setMinSpecialChars(extract("specialChars", policyDescription, Integer.class));
-        policy.setMinUpperCase(extract("upperCase", policyDescription, Integer.class));
-        policy.setMinLowerCase(extract("lowerCase", policyDescription, Integer.class));
-        policy.setPasswordHistory(extract("passwordHistory", policyDescription, Integer.class));
-        policy.setMinDigits(extract("digits", policyDescription, Integer.class));
-        policy.setHashIterations(extract("hashIterations", policyDescription, Integer.class));
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refreshPasswordPolicy() {
+        loadPasswordPolicy();
+        passwordPolicyChanges.publish(realm);
+    }
 
-        if (extract("passwordBlacklist", policyDescription, String.class) != null) {
-            policy.setPasswordBlacklist(true);
-        }
+    private void loadPasswordPolicy() {
+        String value = keycloak.realm(realm).toRepresentation().getPasswordPolicy();
+        passwordPolicy = PasswordPolicyCatalog.of(value, HeaderLocaleResolver.SUPPORTED_LOCALES, this::getPolicyTranslation);
+    }
 
-        if (extract("notUsername", policyDescription, String.class) != null) {
-            policy.setNotUseUsername(true);
+    /**
+     * Periodic reload of Password Policy changed directly in KeyCloak.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${password.policy.ttl:300000}")
+    public void reloadPasswordPolicy() {
+        try {
+            loadPasswordPolicy();
+        } catch (RuntimeException e) {
+            log.warn("Password policy reload failed: {}", e.getMessage());
         }
+    }
 
-        policy.setRegexPattern(extract("regexPattern", policyDescription, String.class));
-        policy.setPasswordExpireDays(extract("forceExpiredPasswordChange", policyDescription, Integer.class));
-        policy.setMinLength(extract("length", policyDescription, Integer.class));
-        
-        if (policy.getMinLength() == null || policy.getMinLength() == 0) {
-            policy.setMinLength(1);
+    private PasswordPolicyCatalog getPasswordPolicyCatalog() {
+        PasswordPolicyCatalog current = passwordPolicy;
+        if (current == null) {
+            synchronized (this) {
+                if (passwordPolicy == null) {
+                    loadPasswordPolicy();
+                }
+                current = passwordPolicy;
+            }
         }
-        
-        policy.setTranslation(getPolicyTranslation(LocaleContextHolder.getLocale(), policy));
-
-        return policy;
+        return current;
     }
 
     private String getPolicyTranslation(Locale locale, PasswordPolicy policy) {
@@ -363,23 +413,6 @@ public class AuthServiceImpl implements AuthService {
     }
 
 
-    @SuppressWarnings("unchecked")
-    private <T> T extract(String code, String policyDescription, Class<T> clazz) {
-
-        if (policyDescription == null || !policyDescription.contains(code)) {
-            return null;
-        }
-
-        String extractedValue = policyDescription.substring(policyDescription.indexOf(code) + code.length() + 1);
-        extractedValue = extractedValue.substring(0, extractedValue.indexOf(")"));
-
-        if (Integer.class.equals(clazz)) {
-            return (T) Integer.valueOf(extractedValue);
-        }
-
-        return (T) extractedValue;
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -390,14 +423,9 @@ public class AuthServiceImpl implements AuthService {
         MDC.put("clientId", client);
         MDC.put("usr", username);
 
-        ResteasyClientBuilder clientBuilder = new ResteasyClientBuilder().connectionPoolSize(10);
 //        UserRepresentation identity = identityService.findIdentityByUsername(username).orElseThrow(() -> new IdentityNotFoundException("username " + username));
         
-        AdvancedTokenManager tokenManager = new AdvancedTokenManager(
-                new AdvancedTokenConfig(this.adminServerUrl, realm, username, null, client, StringUtils.hasText(clientId) ? clientSecret : null, 
-                                OAuth2Constants.TOKEN_EXCHANGE_GRANT_TYPE), clientBuilder.build(), refreshToken);
-
-        return mapping(tokenManager.getAccessToken());            
+        return tokenGrantExecutor.tokenExchange(client, StringUtils.hasText(clientId) ? clientSecret : null, refreshToken, username);
     }
 
     /**
@@ -405,7 +433,7 @@ public class AuthServiceImpl implements AuthService {
      */
     @Override
     public String generatePassword() {
-        return passwordGeneratorService.generate(getPasswordPolicy());
+        return passwordGeneratorService.generate(getPasswordPolicyCatalog().getRules());
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.karumien.cloud.sso.exceptions.DeadlineExceededException;
+
+/**
+ * Service runs batches of independent KeyCloak admin calls in parallel on bounded executor.
+ * <p>
+ * Tasks inherit MDC, locale and deadline of caller, batch started inside of task (nested batch) runs on the same thread.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 21:35:02
+ */
+public interface FanOutService {
+
+    /**
+     * Run task for every item in parallel and gather results in order of items.
+     *
+     * @param batch
+     *            name of batch (metrics tag)
+     * @param items
+     *            items of batch
+     * @param task
+     *            task of one item
+     * @return {@link List} of results in order of items
+     * @throws DeadlineExceededException
+     *             when batch did not finish before deadline
+     */
+    <T, R> List<R> map(String batch, Collection<T> items, Function<T, R> task);
+
+    /**
+     * Run task for every item in parallel and wait for all of them.
+     *
+     * @param batch
+     *            name of batch (metrics tag)
+     * @param items
+     *            items of batch
+     * @param task
+     *            task of one item
+     * @throws DeadlineExceededException
+     *             when batch did not finish before deadline
+     */
+    <T> void forEach(String batch, Collection<T> items, Consumer<T> task);
+
+}
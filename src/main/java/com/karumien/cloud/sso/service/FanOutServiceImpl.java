@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import com.karumien.cloud.sso.exceptions.DeadlineExceededException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of {@link FanOutService} - fixed pool sized by KeyCloak nodes with bounded queue, full queue runs task
+ * on caller thread (back pressure).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 21:41:27
+ */
+@Slf4j
+@Service
+public class FanOutServiceImpl implements FanOutService {
+
+    /** Deadline (nano time) of batch running on current thread */
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    @Value("${keycloak.fanout.nodes:1}")
+    private int nodes;
+
+    @Value("${keycloak.fanout.parallelism-per-node:8}")
+    private int parallelismPerNode;
+
+    @Value("${keycloak.fanout.queue-size:512}")
+    private int queueSize;
+
+    /** Deadline of batch (ms) */
+    @Value("${keycloak.fanout.deadline:60000}")
+    private long deadline;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        int parallelism = Math.max(1, nodes * parallelismPerNode);
+        executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize),
+            new CustomizableThreadFactory("fanout-"), new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "sso.fanout");
+        log.info("Fan-out executor: parallelism {}, queue {}", parallelism, queueSize);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> void forEach(String batch, Collection<T> items, Consumer<T> task) {
+        map(batch, items, item -> {
+            task.accept(item);
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T, R> List<R> map(String batch, Collection<T> items, Function<T, R> task) {
+
+        Long inherited = DEADLINE.get();
+        long batchDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadline);
+        if (inherited != null && inherited - batchDeadline < 0) {
+            batchDeadline = inherited;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            // nested batch would wait for its own workers in worker thread
+            return inherited != null || items.size() < 2 ? inline(batch, items, task, batchDeadline)
+                : parallel(batch, items, task, batchDeadline);
+        } catch (RuntimeException e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("sso.fanout.batch", "batch", batch, "outcome", outcome));
+            meterRegistry.summary("sso.fanout.batch.size", "batch", batch).record(items.size());
+        }
+    }
+
+    private <T, R> List<R> inline(String batch, Collection<T> items, Function<T, R> task, long batchDeadline) {
+        List<R> results = new ArrayList<>(items.size());
+        for (T item : items) {
+            results.add(call(batch, item, task, batchDeadline));
+        }
+        return results;
+    }
+
+    private <T, R> List<R> parallel(String batch, Collection<T> items, Function<T, R> task, long batchDeadline) {
+
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        LocaleContext locale = LocaleContextHolder.getLocaleContext();
+
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        try {
+            for (T item : items) {
+                futures.add(executor.submit(propagate(mdc, locale, () -> call(batch, item, task, batchDeadline))));
+            }
+
+            List<R> results = new ArrayList<>(items.size());
+            for (Future<R> future : futures) {
+                results.add(future.get(Math.max(0, batchDeadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+            return results;
+
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException(batch);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted batch: " + batch, e);
+        } finally {
+            // first failure cancels rest of batch, no-op for finished tasks
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private <T, R> R call(String batch, T item, Function<T, R> task, long batchDeadline) {
+        if (batchDeadline - System.nanoTime() <= 0) {
+            throw new DeadlineExceededException(batch);
+        }
+        Long previous = DEADLINE.get();
+        DEADLINE.set(batchDeadline);
+        try {
+            return task.apply(item);
+        } finally {
+            if (previous == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Task with MDC and locale of caller, context of executing thread is restored after task (caller runs policy).
+     */
+    private static <R> Callable<R> propagate(Map<String, String> mdc, LocaleContext locale, Callable<R> task) {
+        return () -> {
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            LocaleContext previousLocale = LocaleContextHolder.getLocaleContext();
+            if (mdc == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(mdc);
+            }
+            LocaleContextHolder.setLocaleContext(locale);
+            try {
+                return task.call();
+            } finally {
+                if (previousMdc == null) {
+                    MDC.clear();
+                } else {
+                    MDC.setContextMap(previousMdc);
+                }
+                LocaleContextHolder.setLocaleContext(previousLocale);
+            }
+        };
+    }
+}
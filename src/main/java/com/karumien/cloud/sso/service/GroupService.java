@@ -40,6 +40,20 @@ public interface GroupService {
      */
     List<ModuleInfo> getAccountHierarchy(String accountNumber);
 
+    /**
+     * Returns version of hierarchy for current locale (changed with any change of hierarchy or its translation).
+     * 
+     * @param accountNumber
+     *            Account CRM ID
+     * @return {@link String} version usable as ETag
+     */
+    String getAccountHierarchyVersion(String accountNumber);
+
+    /**
+     * Reload cached hierarchy from KeyCloak, other instances of cluster are notified to reload it.
+     */
+    void refreshAccountHierarchy();
+
     List<RoleInfo> getAccountRoles(String accountNumber);
 
     List<RoleRepresentation> getAccountRolesRepresentation(String accountNumber);
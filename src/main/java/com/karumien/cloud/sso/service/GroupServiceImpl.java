@@ -26,21 +26,32 @@
  */
 package com.karumien.cloud.sso.service;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
+
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.NumberUtils;
 
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.karumien.cloud.sso.HazelcastConfiguration;
 import com.karumien.cloud.sso.api.model.ModuleInfo;
 import com.karumien.cloud.sso.api.model.RightGroup;
 import com.karumien.cloud.sso.api.model.RoleInfo;
+import com.karumien.cloud.sso.api.repository.GroupEntityRepository;
 
 
 /**
@@ -66,20 +77,109 @@ public class GroupServiceImpl implements GroupService {
 
     @Autowired
     private LocalizationService localizationService;
-    
+
+    @Autowired
+    private GroupEntityRepository groupEntityRepository;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    private ITopic<String> hierarchyChanges;
+
+    private volatile Hierarchy hierarchy;
+
+    @PostConstruct
+    public void init() {
+        hierarchyChanges = HazelcastConfiguration.invalidatingTopic(hazelcastInstance, HazelcastConfiguration.TOPIC_HIERARCHY_CHANGES,
+            () -> hierarchy = null);
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public List<ModuleInfo> getAccountHierarchy(String accountNumber) {
         //TODO: apply buyed services
-        return keycloak.realm(realm).groups().group(searchService.getMasterGroupId(SELFCARE_GROUP)).toRepresentation()
-            .getSubGroups().stream()
-           .map(g -> mappingModule(g))
-           .collect(Collectors.toList());               
+        Hierarchy current = getHierarchy();
+        return current.translated.computeIfAbsent(language(LocaleContextHolder.getLocale()), locale -> 
+            Collections.unmodifiableList(current.modules.stream()
+                .map(g -> mappingModule(g, locale))
+                .collect(Collectors.toList())));
     }
-    
-    private ModuleInfo mappingModule(GroupRepresentation group) {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getAccountHierarchyVersion(String accountNumber) {
+        return getHierarchy().version + "-" + language(LocaleContextHolder.getLocale());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refreshAccountHierarchy() {
+        hierarchy = loadHierarchy();
+        hierarchyChanges.publish(realm);
+    }
+
+    /**
+     * Poll of changes in SelfCare groups and attributes (made directly in KeyCloak).
+     */
+    @Scheduled(initialDelayString = "${group.hierarchy.poll:60000}", fixedDelayString = "${group.hierarchy.poll:60000}")
+    public void pollAccountHierarchy() {
+        Hierarchy current = hierarchy;
+        // every instance polls itself
+        if (current != null && !current.version.equals(groupEntityRepository.findTreeFingerprint(searchService.getMasterGroupId(SELFCARE_GROUP)))) {
+            hierarchy = loadHierarchy();
+        }
+    }
+
+    private Hierarchy getHierarchy() {
+        Hierarchy current = hierarchy;
+        if (current == null) {
+            synchronized (this) {
+                current = hierarchy;
+                if (current == null) {
+                    current = loadHierarchy();
+                    hierarchy = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Hierarchy loadHierarchy() {
+        String groupId = searchService.getMasterGroupId(SELFCARE_GROUP);
+        // fingerprint first, concurrent change is caught by next poll
+        String version = groupEntityRepository.findTreeFingerprint(groupId);
+        return new Hierarchy(version, keycloak.realm(realm).groups().group(groupId).toRepresentation().getSubGroups());
+    }
+
+    /** Translations are by language only (bounded cache) */
+    private Locale language(Locale locale) {
+        return new Locale(locale.getLanguage());
+    }
+
+    /**
+     * Cached SelfCare hierarchy with translated variants by language.
+     */
+    private static final class Hierarchy {
+
+        private final String version;
+
+        private final List<GroupRepresentation> modules;
+
+        private final Map<Locale, List<ModuleInfo>> translated = new ConcurrentHashMap<>();
+
+        private Hierarchy(String version, List<GroupRepresentation> modules) {
+            this.version = version;
+            this.modules = modules;
+        }
+    }
+
+    private ModuleInfo mappingModule(GroupRepresentation group, Locale locale) {
 
         // TODO viliam: Orica
         ModuleInfo moduleInfo = new ModuleInfo();
@@ -91,15 +191,15 @@ public class GroupServiceImpl implements GroupService {
         }
         moduleInfo.setTranslation(localizationService.translate(
                 moduleInfo.getModuleId() == null ? null : "module" + "." + moduleInfo.getModuleId().toLowerCase(), 
-                        group.getAttributes(), LocaleContextHolder.getLocale(), group.getName()));
+                        group.getAttributes(), locale, group.getName()));
         
         moduleInfo.setGroups(group.getSubGroups().stream()
-            .map(rg -> mappingRightGroup(rg))
+            .map(rg -> mappingRightGroup(rg, locale))
             .collect(Collectors.toList()));
         return moduleInfo;
     }
     
-    private RightGroup mappingRightGroup(GroupRepresentation group) {
+    private RightGroup mappingRightGroup(GroupRepresentation group, Locale locale) {
 
         // TODO viliam: Orica
         RightGroup rightGroup = new RightGroup();
@@ -112,7 +212,7 @@ public class GroupServiceImpl implements GroupService {
         }
         rightGroup.setTranslation(localizationService.translate(
                 rightGroup.getGroupId() == null ? null : "group" + "." + rightGroup.getGroupId().toLowerCase(), 
-                        group.getAttributes(), LocaleContextHolder.getLocale(), group.getName()));
+                        group.getAttributes(), locale, group.getName()));
         
         return rightGroup;
     }
@@ -122,7 +222,7 @@ public class GroupServiceImpl implements GroupService {
 	 */
 	@Override
 	public List<RoleInfo> getAccountRoles(String accountNumber) {
-	    return roleService.getAccountRoles(keycloak.realm(realm).groups().group(searchService.getMasterGroupId(SELFCARE_GROUP)), false);
+	    return roleService.getAccountRoles(searchService.getMasterGroupId(SELFCARE_GROUP), false);
 	}
 
 	/**
@@ -130,7 +230,7 @@ public class GroupServiceImpl implements GroupService {
 	 */
 	@Override
 	public List<RoleRepresentation> getAccountRolesRepresentation(String accountNumber) {
-        return roleService.getAccountRolesRepresentation(keycloak.realm(realm).groups().group(searchService.getMasterGroupId(SELFCARE_GROUP)), false);
+        return roleService.getAccountRolesRepresentation(searchService.getMasterGroupId(SELFCARE_GROUP), false);
 	}
 	
     /**
@@ -138,7 +238,7 @@ public class GroupServiceImpl implements GroupService {
      */
 	@Override
 	public List<String> getAccountRightsOfIdentity(String contactNumber) {
-        return roleService.getIdentityRights(keycloak.realm(realm).groups().group(searchService.getMasterGroupId(SELFCARE_GROUP)), contactNumber);
+        return roleService.getIdentityRights(searchService.getMasterGroupId(SELFCARE_GROUP), contactNumber);
 	}
 		
 }
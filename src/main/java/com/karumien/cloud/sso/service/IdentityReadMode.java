@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+/**
+ * Source of Identity reads ({@code identity.read-mode}).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 10:20:11
+ */
+public enum IdentityReadMode {
+
+    /** Identity loaded by KeyCloak Admin REST API */
+    KEYCLOAK,
+
+    /** Identity loaded by one joined query directly from KeyCloak DB */
+    DATABASE
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.karumien.cloud.sso.api.entity.CredentialEntity;
+import com.karumien.cloud.sso.api.entity.UserAttribute;
+import com.karumien.cloud.sso.api.entity.UserEntity;
+import com.karumien.cloud.sso.api.model.IdentityPropertyType;
+
+/**
+ * Compiles Identity search filter into one query over USER_ENTITY, USER_ATTRIBUTE and CREDENTIAL.
+ * <p>
+ * Every key is one AND predicate (attribute keys as subquery), join order is left to DB planner.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 14:02:51
+ */
+public final class IdentitySearchPlanner {
+
+    private IdentitySearchPlanner() {
+    }
+
+    /**
+     * Plan of search by all keys of filter.
+     *
+     * @param realm
+     *            for specific realm
+     * @param searchFilter
+     *            keys and values of search (all must match)
+     * @return {@link Specification} of {@link UserEntity}
+     */
+    public static Specification<UserEntity> plan(String realm, Map<IdentityPropertyType, String> searchFilter) {
+
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            for (Map.Entry<IdentityPropertyType, String> key : searchFilter.entrySet()) {
+                predicates.add(predicate(root, query, cb, key.getKey(), key.getValue()));
+            }
+            predicates.add(cb.equal(root.get("realm"), realm));
+            return cb.and(predicates.toArray(new Predicate[predicates.size()]));
+        };
+    }
+
+    private static Predicate predicate(Root<UserEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb,
+            IdentityPropertyType key, String value) {
+
+        switch (key) {
+        case ID:
+            return cb.equal(root.get("userId"), value);
+        case USERNAME:
+            return cb.equal(root.get("username"), value.toLowerCase());
+        case EMAIL:
+            return cb.equal(root.get("email"), value.toLowerCase());
+        case ATTR_NOTE:
+            return attribute(root, query, cb, key.getValue(), value.toLowerCase());
+        case ATTR_HAS_CREDENTIALS:
+            Subquery<String> credentials = query.subquery(String.class);
+            Root<CredentialEntity> credential = credentials.from(CredentialEntity.class);
+            credentials.select(credential.<String>get("userId")).where(cb.equal(credential.get("type"), "password"));
+            return Boolean.valueOf(value) ? root.get("userId").in(credentials) : cb.not(root.get("userId").in(credentials));
+        default:
+            return attribute(root, query, cb, key.getValue(), value);
+        }
+    }
+
+    private static Predicate attribute(Root<UserEntity> root, CriteriaQuery<?> query, CriteriaBuilder cb, String name, String value) {
+        Subquery<String> users = query.subquery(String.class);
+        Root<UserAttribute> attribute = users.from(UserAttribute.class);
+        users.select(attribute.<String>get("userId")).where(cb.equal(attribute.get("name"), name), cb.equal(attribute.get("value"), value));
+        return root.get("userId").in(users);
+    }
+}
@@ -6,6 +6,8 @@
  */
 package com.karumien.cloud.sso.service;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -16,6 +18,7 @@ import org.keycloak.representations.idm.UserRepresentation;
 import org.springframework.util.StringUtils;
 
 import com.karumien.cloud.sso.api.UpdateType;
+import com.karumien.cloud.sso.api.entity.IdentityProjection;
 import com.karumien.cloud.sso.api.model.ClientRedirect;
 import com.karumien.cloud.sso.api.model.Credentials;
 import com.karumien.cloud.sso.api.model.DriverPin;
@@ -23,6 +26,10 @@ import com.karumien.cloud.sso.api.model.IdentityInfo;
 import com.karumien.cloud.sso.api.model.IdentityPropertyType;
 import com.karumien.cloud.sso.api.model.IdentityState;
 import com.karumien.cloud.sso.api.model.UserActionType;
+import com.karumien.cloud.sso.exceptions.IdentityDuplicateException;
+import com.karumien.cloud.sso.exceptions.IdentityNotFoundException;
+import com.karumien.cloud.sso.util.KeysetPage;
+import com.karumien.cloud.sso.util.KeysetRequest;
 
 /**
  * Service provides scenarios for Identity's management.
@@ -56,6 +63,9 @@ public interface IdentityService {
 
     String ATTR_LAST_LOGIN_ERROR = IdentityPropertyType.ATTR_LAST_LOGIN_ERROR.getValue();
 
+    /** Allowed sort properties of keyset pagination (first is default) */
+    List<String> KEYSET_PROPERTIES = Arrays.asList("username", "lastName", SearchService.SORT_CREATED);
+
     /**
      * Create Identity in target SSO.
      * 
@@ -191,6 +201,19 @@ public interface IdentityService {
 
     Optional<UserRepresentation> findIdentity(String contactNumber);
 
+    /**
+     * Resolve ID of Identity by business key (without loading of Identity).
+     * 
+     * @param attribute
+     *            business key ie. contactNumber, nav4Id, username
+     * @param value
+     *            specific value of key
+     * @return {@link String} User's ID
+     * @throws IdentityNotFoundException when Identity not exists
+     * @throws IdentityDuplicateException when contactNumber is not unique
+     */
+    String getIdentityId(IdentityPropertyType attribute, String value);
+
     Optional<UserRepresentation> findIdentityNav4(String nav4Id);
 
     Optional<UserRepresentation> findIdentityByUsername(String username);
@@ -218,6 +241,28 @@ public interface IdentityService {
 
     IdentityInfo mapping(UserRepresentation userRepresentation, boolean withLoginInfo);
 
+    /**
+     * Batch mapping of Identities, credentials of all Identities are resolved at once.
+     * 
+     * @param users
+     *            loaded Identities
+     * @param withLoginInfo
+     *            attach login info informations
+     * @return {@link List} of mapped {@link IdentityInfo} in order of users
+     */
+    List<IdentityInfo> mapping(Collection<UserRepresentation> users, boolean withLoginInfo);
+
+    /**
+     * Mapping of Identity loaded directly from KeyCloak DB.
+     * 
+     * @param projection
+     *            Identity projection
+     * @param withLoginInfo
+     *            attach login info informations
+     * @return {@link IdentityInfo} mapped Identity
+     */
+    IdentityInfo mapping(IdentityProjection projection, boolean withLoginInfo);
+
     /**
      * Return identity base on nav4Id from request parameter
      * 
@@ -268,8 +313,28 @@ public interface IdentityService {
 
     List<IdentityInfo> search(Map<IdentityPropertyType, String> searchFilter);
 
+    /**
+     * Search Identities by filter, one keyset (cursor) page.
+     * 
+     * @param searchFilter
+     *            keys and values of search (all must match)
+     * @param page
+     *            keyset page request
+     * @return {@link KeysetPage} of {@link IdentityInfo}
+     */
+    KeysetPage<IdentityInfo> search(Map<IdentityPropertyType, String> searchFilter, KeysetRequest page);
+
     Optional<UserRepresentation> findUserRepresentationById(String identityId);
 
+    /**
+     * Batch load of Identities directly from KeyCloak DB (users and attributes in chunked queries).
+     * 
+     * @param identityIds
+     *            User's IDs
+     * @return {@link Map} of found {@link UserRepresentation} by User's ID (in order of requested IDs)
+     */
+    Map<String, UserRepresentation> findUserRepresentationsByIds(Collection<String> identityIds);
+
     default void putIfPresent(Map<IdentityPropertyType, String> search, IdentityPropertyType key, String value) {
         if (StringUtils.hasText(value)) {
             search.put(key, value);
@@ -282,6 +347,8 @@ public interface IdentityService {
 
     IdentityState mappingIdentityState(UserRepresentation userRepresentation);
 
+    IdentityState mappingIdentityState(UserRepresentation userRepresentation, boolean hasCredentials);
+
     IdentityState getIdentityStateByNav4(String nav4Id);
 
     void resetPasswordUserActionNav4(String nav4Id, ClientRedirect clientRedirect);
@@ -11,10 +11,15 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import javax.ws.rs.BadRequestException;
@@ -32,8 +37,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import com.hazelcast.core.IMap;
 import com.karumien.cloud.sso.api.UpdateType;
 import com.karumien.cloud.sso.api.entity.AccountEntity;
+import com.karumien.cloud.sso.api.entity.IdentityProjection;
+import com.karumien.cloud.sso.api.entity.UserEntity;
 import com.karumien.cloud.sso.api.model.ClientRedirect;
 import com.karumien.cloud.sso.api.model.Credentials;
 import com.karumien.cloud.sso.api.model.DriverPin;
@@ -50,6 +58,8 @@ import com.karumien.cloud.sso.exceptions.IdentityEmailNotExistsOrVerifiedExcepti
 import com.karumien.cloud.sso.exceptions.IdentityNotFoundException;
 import com.karumien.cloud.sso.exceptions.PasswordPolicyException;
 import com.karumien.cloud.sso.exceptions.UpdateIdentityException;
+import com.karumien.cloud.sso.util.KeysetPage;
+import com.karumien.cloud.sso.util.KeysetRequest;
 
 
 /**
@@ -64,6 +74,9 @@ public class IdentityServiceImpl implements IdentityService {
     @Value("${keycloak.realm}")
     private String realm;
 
+    @Value("${identity.read-mode:KEYCLOAK}")
+    private IdentityReadMode readMode;
+
     @Autowired
     private Keycloak keycloak;
 
@@ -76,6 +89,13 @@ public class IdentityServiceImpl implements IdentityService {
     @Autowired
     private SearchService searchService;
 
+    /** Uniqueness checks read KeyCloak DB, index of other node could miss just created Identity */
+    @Autowired
+    private SearchServiceImpl searchServiceImpl;
+
+    @Autowired
+    private IMap<String, IdentityInfo> identityCache;
+
     /**
      * {@inheritDoc}
      */
@@ -96,6 +116,12 @@ public class IdentityServiceImpl implements IdentityService {
     
     private void delete(UserRepresentation user) {
         keycloak.realm(realm).users().delete(user.getId());
+        evict(user.getId());
+        searchService.refreshIdentity(user.getId());
+    }
+
+    private void evict(String identityId) {
+        identityCache.delete(identityId);
     }
 
     /**
@@ -157,6 +183,9 @@ public class IdentityServiceImpl implements IdentityService {
             userResource.update(identity);
         } catch (BadRequestException e) {
             throw new UpdateIdentityException(e.getMessage());
+        } finally {
+            evict(identity.getId());
+            searchService.refreshIdentity(identity.getId());
         }
         
     }
@@ -201,7 +230,7 @@ public class IdentityServiceImpl implements IdentityService {
             }
         }
 
-        if (isIdentityExists(username)) {
+        if (isIdentityExistsInDatabase(IdentityPropertyType.USERNAME, username)) {
             throw new IdentityDuplicateException("Identity with same username already exists");
         }
 
@@ -233,12 +262,12 @@ public class IdentityServiceImpl implements IdentityService {
 
         // TODO: Persistent lock?
         if (StringUtils.hasText(identityInfo.getNav4Id())) {
-            if (!CollectionUtils.isEmpty(searchService.findUserIdsByAttribute(IdentityPropertyType.ATTR_NAV4ID, identityInfo.getNav4Id()))) {
+            if (isIdentityExistsInDatabase(IdentityPropertyType.ATTR_NAV4ID, identityInfo.getNav4Id())) {
                 throw new IdentityDuplicateException("Identity with same nav4Id already exists");
             }
             identity.singleAttribute(ATTR_NAV4ID, identityInfo.getNav4Id());
         } else {
-            if (!CollectionUtils.isEmpty(searchService.findUserIdsByAttribute(IdentityPropertyType.ATTR_CONTACT_NUMBER, identityInfo.getContactNumber()))) {
+            if (isIdentityExistsInDatabase(IdentityPropertyType.ATTR_CONTACT_NUMBER, identityInfo.getContactNumber())) {
                 throw new IdentityDuplicateException("Identity with same contactNumber already exists, use nav4Id for uniqueness");
             }
         }
@@ -257,6 +286,7 @@ public class IdentityServiceImpl implements IdentityService {
 
         Response response = keycloak.realm(realm).users().create(identity);
         identityInfo.setIdentityId(getCreatedId(response));
+        searchService.refreshIdentity(identityInfo.getIdentityId());
         identityInfo.setEmailVerified(identity.isEmailVerified());
         identityInfo.setState(IdentityState.CREATED);
 
@@ -267,7 +297,7 @@ public class IdentityServiceImpl implements IdentityService {
         // P538-381 Try change username if not used email in sso
         if (!Boolean.TRUE.equals(identityInfo.isNoUseEmailAsUsername()) 
                 && !StringUtils.hasText(identityInfo.getUsername()) 
-                && !isIdentityExists(identityInfo.getEmail())) {
+                && !isIdentityExistsInDatabase(IdentityPropertyType.USERNAME, identityInfo.getEmail())) {
             
             String oldUsername = identityInfo.getUsername();
             identityInfo.setUsername(identityInfo.getEmail());
@@ -367,6 +397,9 @@ public class IdentityServiceImpl implements IdentityService {
 
         } catch (BadRequestException e) {
             throw new PasswordPolicyException(newCredentials.getPassword());
+        } finally {
+            evict(user.getId());
+            searchService.refreshIdentity(user.getId());
         }
     }
 
@@ -375,7 +408,82 @@ public class IdentityServiceImpl implements IdentityService {
      */
     @Override
     public IdentityInfo getIdentity(String contactNumber, boolean withLoginInfo) {
-        return mapping(findIdentity(contactNumber).orElseThrow(() -> new IdentityNotFoundException(contactNumber)), withLoginInfo);
+        return getIdentity(IdentityPropertyType.ATTR_CONTACT_NUMBER, contactNumber, withLoginInfo,
+            () -> new IdentityNotFoundException(contactNumber));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getIdentityId(IdentityPropertyType attribute, String value) {
+
+        List<String> userIds = searchService.findUserIdsByAttribute(attribute, value);
+        if (attribute == IdentityPropertyType.ATTR_CONTACT_NUMBER && userIds.size() > 1) {
+            throw new IdentityDuplicateException(value);
+        }
+
+        return userIds.stream().findFirst().orElseThrow(() -> new IdentityNotFoundException(
+            attribute == IdentityPropertyType.ATTR_CONTACT_NUMBER ? value 
+                : attribute == IdentityPropertyType.ATTR_NAV4ID ? "NAV4 ID: " + value : attribute.getValue() + " = " + value));
+    }
+
+    /**
+     * Returns mapped Identity by business key from cluster cache, loaded by {@link IdentityReadMode} when missing.
+     * <p>
+     * In DATABASE mode the cache is consulted only when User's ID is resolved from memory (index), otherwise one
+     * joined query by business key is cheaper than ID lookup followed by cache.
+     */
+    private IdentityInfo getIdentity(IdentityPropertyType attribute, String value, boolean withLoginInfo,
+            Supplier<IdentityNotFoundException> notFound) {
+
+        if (readMode != IdentityReadMode.DATABASE) {
+            return getIdentityById(getIdentityId(attribute, value), withLoginInfo, notFound);
+        }
+
+        IdentityInfo identity = null;
+        if (searchService.isIndexed(attribute)) {
+            List<String> userIds = searchService.findUserIdsByAttribute(attribute, value);
+            if (attribute == IdentityPropertyType.ATTR_CONTACT_NUMBER && userIds.size() > 1) {
+                throw new IdentityDuplicateException(value);
+            }
+            identity = userIds.isEmpty() ? null : identityCache.get(userIds.get(0));
+        }
+
+        if (identity == null) {
+            identity = mapping(findIdentityProjection(attribute, value).orElseThrow(notFound), true);
+            identityCache.set(identity.getIdentityId(), identity);
+        }
+        return withLoginInfo(identity, withLoginInfo);
+    }
+
+    private Optional<IdentityProjection> findIdentityProjection(IdentityPropertyType attribute, String value) {
+        List<IdentityProjection> identities = searchService.findIdentityProjections(attribute, value);
+        if (attribute == IdentityPropertyType.ATTR_CONTACT_NUMBER && identities.size() > 1) {
+            throw new IdentityDuplicateException(value);
+        }
+        return identities.stream().findFirst();
+    }
+
+    /**
+     * Returns mapped Identity from cluster cache, loaded from KeyCloak when missing.
+     */
+    private IdentityInfo getIdentityById(String identityId, boolean withLoginInfo, Supplier<IdentityNotFoundException> notFound) {
+
+        IdentityInfo identity = identityCache.get(identityId);
+        if (identity == null) {
+            identity = mapping(findUserRepresentationById(identityId).orElseThrow(notFound), true);
+            identityCache.set(identityId, identity);
+        }
+        return withLoginInfo(identity, withLoginInfo);
+    }
+
+    private IdentityInfo withLoginInfo(IdentityInfo identity, boolean withLoginInfo) {
+        // cached with login info, copy from cache is detached
+        if (!withLoginInfo) {
+            identity.setLoginInfo(null);
+        }
+        return identity;
     }
 
     /**
@@ -384,14 +492,13 @@ public class IdentityServiceImpl implements IdentityService {
     @Override
     public List<IdentityInfo> getIdentities(List<String> contactNumbers, boolean withLoginInfo) {
         
-        List<IdentityInfo> data = new ArrayList<>();
+        List<String> userIds = new ArrayList<>();
         
         for (String contactNumber : contactNumbers) {
-            searchService.findUserIdsByAttribute(IdentityPropertyType.ATTR_CONTACT_NUMBER, contactNumber)
-                .forEach(userId -> data.add(mapping(keycloak.realm(realm).users().get(userId).toRepresentation(), withLoginInfo)));
+            userIds.addAll(searchService.findUserIdsByAttribute(IdentityPropertyType.ATTR_CONTACT_NUMBER, contactNumber));
         }
         
-        return data;
+        return mapping(findUserRepresentationsByIds(userIds).values(), withLoginInfo);
     }
 
     /**
@@ -420,6 +527,45 @@ public class IdentityServiceImpl implements IdentityService {
         return Optional.empty();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, UserRepresentation> findUserRepresentationsByIds(Collection<String> identityIds) {
+
+        Map<String, UserRepresentation> users = new LinkedHashMap<>();
+        if (CollectionUtils.isEmpty(identityIds)) {
+            return users;
+        }
+
+        Map<String, Map<String, List<String>>> attributes = searchService.findUserAttributesByIds(identityIds);
+        Map<String, UserEntity> entities = new HashMap<>();
+        searchService.findUsersByIds(identityIds).forEach(entity -> entities.put(entity.getUserId(), entity));
+
+        for (String identityId : identityIds) {
+            UserEntity entity = entities.get(identityId);
+            if (entity != null && !users.containsKey(identityId)) {
+                users.put(identityId, mapping(entity, attributes.getOrDefault(identityId, new HashMap<>())));
+            }
+        }
+
+        return users;
+    }
+
+    private UserRepresentation mapping(UserEntity entity, Map<String, List<String>> attributes) {
+        UserRepresentation user = new UserRepresentation();
+        user.setId(entity.getUserId());
+        user.setUsername(entity.getUsername());
+        user.setFirstName(entity.getFirstName());
+        user.setLastName(entity.getLastName());
+        user.setEmail(entity.getEmail());
+        user.setEmailVerified(entity.getEmailVerified());
+        user.setEnabled(entity.getEnabled());
+        user.setCreatedTimestamp(entity.getCreatedTimestamp());
+        user.setAttributes(attributes);
+        return user;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -438,6 +584,22 @@ public class IdentityServiceImpl implements IdentityService {
      */
     @Override
     public IdentityInfo mapping(UserRepresentation userRepresentation, boolean withLoginInfo) {
+        return mapping(userRepresentation, withLoginInfo, searchService.hasCredentials(userRepresentation.getId()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IdentityInfo> mapping(Collection<UserRepresentation> users, boolean withLoginInfo) {
+        Set<String> withCredentials = searchService.findUserIdsWithCredentials(
+            users.stream().map(UserRepresentation::getId).collect(Collectors.toList()));
+        return users.stream()
+            .map(user -> mapping(user, withLoginInfo, withCredentials.contains(user.getId())))
+            .collect(Collectors.toList());
+    }
+
+    private IdentityInfo mapping(UserRepresentation userRepresentation, boolean withLoginInfo, boolean hasCredentials) {
 
         // TODO: Orica Mapper
         IdentityInfo identity = new IdentityInfo();
@@ -460,20 +622,62 @@ public class IdentityServiceImpl implements IdentityService {
         }
         
         if (withLoginInfo) {
-            LoginInfo loginInfo = new LoginInfo();
-            DateFormat dateFormat = new SimpleDateFormat("yyyy-mm-dd hh:mm:ss");  
-            loginInfo.setCreated(dateFormat.format(new Date(userRepresentation.getCreatedTimestamp())));
-            loginInfo.setLastLogin(searchService.getSimpleAttribute(userRepresentation.getAttributes(), ATTR_LAST_LOGIN).orElse(null));
-            loginInfo.setLastLogout(searchService.getSimpleAttribute(userRepresentation.getAttributes(), ATTR_LAST_LOGOUT).orElse(null));
-            loginInfo.setLastLoginError(searchService.getSimpleAttribute(userRepresentation.getAttributes(), ATTR_LAST_LOGIN_ERROR).orElse(null));
-            identity.setLoginInfo(loginInfo);
+            identity.setLoginInfo(mappingLoginInfo(userRepresentation.getCreatedTimestamp(),
+                searchService.getSimpleAttribute(userRepresentation.getAttributes(), ATTR_LAST_LOGIN).orElse(null),
+                searchService.getSimpleAttribute(userRepresentation.getAttributes(), ATTR_LAST_LOGOUT).orElse(null),
+                searchService.getSimpleAttribute(userRepresentation.getAttributes(), ATTR_LAST_LOGIN_ERROR).orElse(null)));
         }
         
-        identity.setState(mappingIdentityState(userRepresentation));
+        identity.setState(mappingIdentityState(userRepresentation, hasCredentials));
+        identity.setHasCredentials(identity.getState() != IdentityState.CREATED);
+        return identity;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IdentityInfo mapping(IdentityProjection projection, boolean withLoginInfo) {
+
+        IdentityInfo identity = new IdentityInfo();
+        identity.setFirstName(projection.getFirstName());
+        identity.setLastName(projection.getLastName());
+        identity.setUsername(projection.getUsername());
+        identity.setEmail(projection.getEmail());
+        identity.setEmailVerified(projection.getEmailVerified());
+
+        identity.setAccountNumber(projection.getAccountNumber());
+        identity.setContactNumber(projection.getContactNumber());
+        identity.setNote(projection.getNote());
+        identity.setPhone(projection.getPhone());
+        identity.setNav4Id(projection.getNav4Id());
+        identity.setLocale(projection.getLocale());
+        identity.setIdentityId(projection.getIdentityId());
+
+        if (! Boolean.TRUE.equals(projection.getEnabled())) {
+            identity.setLocked(true);
+        }
+
+        if (withLoginInfo) {
+            identity.setLoginInfo(mappingLoginInfo(projection.getCreatedTimestamp(),
+                projection.getLastLogin(), projection.getLastLogout(), projection.getLastLoginError()));
+        }
+
+        identity.setState(mappingIdentityState(Boolean.TRUE.equals(projection.getHasCredentials()), projection.getLastLogin()));
         identity.setHasCredentials(identity.getState() != IdentityState.CREATED);
         return identity;
     }
 
+    private LoginInfo mappingLoginInfo(Long created, String lastLogin, String lastLogout, String lastLoginError) {
+        LoginInfo loginInfo = new LoginInfo();
+        DateFormat dateFormat = new SimpleDateFormat("yyyy-mm-dd hh:mm:ss");  
+        loginInfo.setCreated(created == null ? null : dateFormat.format(new Date(created)));
+        loginInfo.setLastLogin(lastLogin);
+        loginInfo.setLastLogout(lastLogout);
+        loginInfo.setLastLoginError(lastLoginError);
+        return loginInfo;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -492,9 +696,28 @@ public class IdentityServiceImpl implements IdentityService {
             return IdentityState.NOT_EXISTS;
         }
         
-        if (searchService.hasCredentials(userRepresentation.getId())) {
+        return mappingIdentityState(userRepresentation, searchService.hasCredentials(userRepresentation.getId()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public IdentityState mappingIdentityState(UserRepresentation userRepresentation, boolean hasCredentials) {
+        
+        if (userRepresentation == null) {
+            return IdentityState.NOT_EXISTS;
+        }
+        
+        return mappingIdentityState(hasCredentials, 
+            searchService.getSimpleAttribute(userRepresentation.getAttributes(), ATTR_LAST_LOGIN).orElse(null));
+    }
+
+    private IdentityState mappingIdentityState(boolean hasCredentials, String lastLogin) {
+
+        if (hasCredentials) {
          
-            if (searchService.getSimpleAttribute(userRepresentation.getAttributes(), ATTR_LAST_LOGIN).isPresent()) {
+            if (lastLogin != null) {
                 return IdentityState.ACTIVE;
             }
                         
@@ -531,7 +754,11 @@ public class IdentityServiceImpl implements IdentityService {
      */
     @Override
     public boolean isIdentityExists(String username) {
-        return findIdentityByUsername(username).isPresent();
+        return !searchService.findUserIdsByAttribute(IdentityPropertyType.USERNAME, username).isEmpty();
+    }
+
+    private boolean isIdentityExistsInDatabase(IdentityPropertyType attribute, String value) {
+        return !CollectionUtils.isEmpty(searchServiceImpl.findUserIdsByAttribute(attribute, value));
     }
 
     /**
@@ -539,7 +766,8 @@ public class IdentityServiceImpl implements IdentityService {
      */
     @Override
     public IdentityInfo getIdentityByUsername(String username) {
-        return mapping(findIdentityByUsername(username).orElseThrow(() -> new IdentityNotFoundException("username = " + username)), false);
+        return getIdentity(IdentityPropertyType.USERNAME, username, false,
+            () -> new IdentityNotFoundException("username = " + username));
     }
 
     /**
@@ -593,6 +821,7 @@ public class IdentityServiceImpl implements IdentityService {
             userRepresentation.getAttributes().put(IdentityPropertyType.ATTR_BINARY_RIGHTS.getValue(), Arrays.asList(binaryRoles));
         }
         userResource.update(userRepresentation);
+        evict(userRepresentation.getId());
     }
 
     /**
@@ -603,6 +832,7 @@ public class IdentityServiceImpl implements IdentityService {
         UserRepresentation user = findIdentity(contactNumber).orElseThrow(() -> new IdentityNotFoundException(contactNumber));
         user.getAttributes().put(IdentityPropertyType.ATTR_DRIVER_PIN.getValue(), Arrays.asList(pin.getPin()));
         keycloak.realm(realm).users().get(user.getId()).update(user);
+        evict(user.getId());
     }
 
     /**
@@ -613,6 +843,7 @@ public class IdentityServiceImpl implements IdentityService {
         UserRepresentation user = findIdentity(contactNumber).orElseThrow(() -> new IdentityNotFoundException(contactNumber));
         user.getAttributes().remove(ATTR_DRIVER_PIN);
         keycloak.realm(realm).users().get(user.getId()).update(user);
+        evict(user.getId());
     }
 
     /**
@@ -672,6 +903,7 @@ public class IdentityServiceImpl implements IdentityService {
         UserRepresentation user = findIdentity(contactNumber).orElseThrow(() -> new IdentityNotFoundException(contactNumber));
         user.setEnabled(!blockedStatus);
         keycloak.realm(realm).users().get(user.getId()).update(user);
+        evict(user.getId());
     }
 
     /**
@@ -711,9 +943,8 @@ public class IdentityServiceImpl implements IdentityService {
      */
     @Override
     public IdentityInfo getIdentityByNav4(String nav4Id, boolean withLoginInfo) {
-        String userId = searchService.findUserIdsByAttribute(IdentityPropertyType.ATTR_NAV4ID, nav4Id).stream().findFirst()
-                .orElseThrow(() -> new IdentityNotFoundException("NAV4 ID: " + nav4Id));
-        return mapping(keycloak.realm(realm).users().get(userId).toRepresentation(), withLoginInfo);
+        return getIdentity(IdentityPropertyType.ATTR_NAV4ID, nav4Id, withLoginInfo,
+            () -> new IdentityNotFoundException("NAV4 ID: " + nav4Id));
     }
 
     /**
@@ -746,50 +977,20 @@ public class IdentityServiceImpl implements IdentityService {
      */
     @Override
     public List<IdentityInfo> search(Map<IdentityPropertyType, String> searchFilter) {
+        // whole filter in one query, only final hits are mapped
+        return mappingIds(searchService.findUserIds(searchFilter));
+    }
 
-        List<IdentityInfo> found = new ArrayList<>();
-        
-        IdentityPropertyType firstKey = searchFilter.keySet().stream()
-            .findFirst().get();
-        found = mappingIds(searchService.findUserIdsByAttribute(firstKey, searchFilter.remove(firstKey)));
-                    
-        // filter other 
-        for (IdentityPropertyType key : searchFilter.keySet()) {
-            found = found.stream().filter(i -> hasProperty(i, key, searchFilter.get(key))).collect(Collectors.toList());            
-        }
-        
-        return found;
-    }
-
-    private boolean hasProperty(IdentityInfo i, IdentityPropertyType key, String value) {
-        switch (key) {
-        case ID:
-            return value.equals(i.getIdentityId());
-        case USERNAME:
-            return value.toLowerCase().equals(i.getUsername());
-        case EMAIL:
-            return value.toLowerCase().equals(i.getEmail());
-        case ATTR_ACCOUNT_NUMBER:
-            return value.equals(i.getAccountNumber());
-        case ATTR_CONTACT_NUMBER:
-            return value.equals(i.getContactNumber());
-        case ATTR_NOTE:
-            return value.equals(i.getNote());
-        case ATTR_HAS_CREDENTIALS:
-            return i.isHasCredentials() != null ? i.isHasCredentials().equals(Boolean.valueOf(value)) : false;
-        case ATTR_NAV4ID:
-            return value.equals(i.getNav4Id());
-        case ATTR_PHONE:
-            return value.equals(i.getPhone());
-        default:
-            return false;
-        }
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KeysetPage<IdentityInfo> search(Map<IdentityPropertyType, String> searchFilter, KeysetRequest page) {
+        return searchService.findUserIds(searchFilter, page).map(this::mappingIds);
     }
 
     private List<IdentityInfo> mappingIds(List<String> userIds) {
-        return userIds.stream().map(id -> findUserRepresentationById(id))
-            .filter(f -> f.isPresent()).map(u -> mapping(u.get(), false))
-            .collect(Collectors.toList());
+        return mapping(findUserRepresentationsByIds(userIds).values(), false);
     }
 
     /**
@@ -0,0 +1,490 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.karumien.cloud.sso.HazelcastConfiguration;
+import com.karumien.cloud.sso.api.entity.IdentityProjection;
+import com.karumien.cloud.sso.api.entity.PinIdentityProjection;
+import com.karumien.cloud.sso.api.entity.UserEntity;
+import com.karumien.cloud.sso.api.model.AccountPropertyType;
+import com.karumien.cloud.sso.api.model.IdentityPropertyType;
+import com.karumien.cloud.sso.util.KeysetPage;
+import com.karumien.cloud.sso.util.KeysetRequest;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of {@link SearchService} resolving business keys of Identities by in-memory index.
+ * <p>
+ * Index is loaded by streaming scan of KeyCloak DB, updated by own writes (propagated to the cluster)
+ * and by periodic poll of newly created Users. Full rebuild is repeated periodically to catch changes
+ * made outside of this service. Other searches are delegated to {@link SearchServiceImpl}.
+ * <p>
+ * Optionally index holds bitmap of Users with password credentials (by compact User's ordinal). Only positive
+ * bits are trusted, Users without bit are verified by DB (credentials could be created directly in KeyCloak).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 12:40:18
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "search.index.enabled", havingValue = "true")
+@Slf4j
+public class IndexedSearchServiceImpl implements SearchService {
+
+    /** Business keys resolved by index */
+    private static final Set<IdentityPropertyType> INDEXED = Collections.unmodifiableSet(EnumSet.of(
+        IdentityPropertyType.USERNAME, IdentityPropertyType.EMAIL, IdentityPropertyType.ATTR_CONTACT_NUMBER,
+        IdentityPropertyType.ATTR_NAV4ID, IdentityPropertyType.ATTR_ACCOUNT_NUMBER));
+
+    private static final Map<String, IdentityPropertyType> BY_NAME = new HashMap<>();
+
+    static {
+        INDEXED.forEach(type -> BY_NAME.put(type.getValue(), type));
+    }
+
+    @Autowired
+    private SearchServiceImpl searchServiceImpl;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Value("${search.index.credentials:true}")
+    private boolean credentialsIndexed;
+
+    private ITopic<String> identityChanges;
+
+    private volatile UserKeyIndex index;
+
+    private volatile long watermark;
+
+    /** Users created at watermark already indexed (bound is inclusive for Users with equal timestamp) */
+    private volatile Set<String> watermarkUserIds = Collections.emptySet();
+
+    private volatile boolean rebuilding;
+
+    private final Set<String> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    /** Changes of other nodes are reloaded from DB outside of Hazelcast event thread */
+    private final ExecutorService changesExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("index-changes-"));
+
+    @PostConstruct
+    public void init() {
+        identityChanges = hazelcastInstance.getTopic(HazelcastConfiguration.TOPIC_IDENTITY_CHANGES);
+        identityChanges.addMessageListener(message -> {
+            if (!message.getPublishingMember().localMember()) {
+                changesExecutor.execute(() -> {
+                    try {
+                        reload(Arrays.asList(message.getMessageObject()));
+                    } catch (RuntimeException e) {
+                        log.warn("Identity index reload of {} failed: {}", message.getMessageObject(), e.getMessage());
+                    }
+                });
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        changesExecutor.shutdownNow();
+    }
+
+    /**
+     * Full (re)build of index, searches are delegated to DB until first build is finished.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${search.index.rebuild:900000}")
+    public void rebuild() {
+
+        long start = System.currentTimeMillis();
+        changedDuringRebuild.clear();
+        rebuilding = true;
+
+        try {
+            Long lastCreated = searchServiceImpl.findMaxCreatedTimestamp();
+            UserKeyIndex newIndex = new UserKeyIndex();
+            searchServiceImpl.scanUserKeys(INDEXED, newIndex::add);
+            if (credentialsIndexed) {
+                searchServiceImpl.scanUserIdsWithCredentials(userId -> newIndex.setCredentials(userId, true));
+            }
+            index = newIndex;
+            watermark = lastCreated == null ? 0 : lastCreated;
+            watermarkUserIds = Collections.emptySet();
+            log.info("Identity index built: {} users in {} ms", newIndex.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Identity index build failed", e);
+        } finally {
+            rebuilding = false;
+        }
+
+        // changes during scan could be missed by new index
+        if (!changedDuringRebuild.isEmpty()) {
+            reload(new ArrayList<>(changedDuringRebuild));
+        }
+    }
+
+    /**
+     * Delta poll of Users created since last build/poll (ie. by KeyCloak itself).
+     */
+    @Scheduled(initialDelayString = "${search.index.poll:30000}", fixedDelayString = "${search.index.poll:30000}")
+    public void poll() {
+
+        if (index == null) {
+            return;
+        }
+
+        long since = watermark;
+        Set<String> indexed = watermarkUserIds;
+        List<String> userIds = new ArrayList<>();
+        long last = since;
+        Set<String> lastUserIds = new HashSet<>();
+        for (Object[] row : searchServiceImpl.findUsersCreatedSince(since)) {
+            String userId = (String) row[0];
+            long created = row[1] == null ? since : (Long) row[1];
+            if (created == since && indexed.contains(userId)) {
+                continue;
+            }
+            userIds.add(userId);
+            if (created > last) {
+                last = created;
+                lastUserIds.clear();
+            }
+            if (created == last) {
+                lastUserIds.add(userId);
+            }
+        }
+
+        if (!userIds.isEmpty()) {
+            reload(userIds);
+            if (last == since) {
+                lastUserIds.addAll(indexed);
+            }
+            watermark = last;
+            watermarkUserIds = lastUserIds;
+        }
+    }
+
+    private void reload(Collection<String> userIds) {
+
+        if (rebuilding) {
+            changedDuringRebuild.addAll(userIds);
+        }
+
+        UserKeyIndex current = index;
+        if (current == null || userIds.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Object[]>> keys = new HashMap<>();
+        userIds.forEach(userId -> keys.put(userId, new ArrayList<>()));
+        searchServiceImpl.findUserKeys(userIds, INDEXED).forEach(row -> keys.get(row[0]).add(row));
+        keys.forEach(current::replace);
+
+        if (credentialsIndexed) {
+            Set<String> withCredentials = searchServiceImpl.findUserIdsWithCredentials(userIds);
+            userIds.forEach(userId -> current.setCredentials(userId, withCredentials.contains(userId)));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refreshIdentity(String identityId) {
+        reload(Arrays.asList(identityId));
+        identityChanges.publish(identityId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> findUserIdsByAttribute(IdentityPropertyType attribute, String value) {
+
+        UserKeyIndex current = index;
+        if (current == null || !INDEXED.contains(attribute)) {
+            return searchServiceImpl.findUserIdsByAttribute(attribute, value);
+        }
+
+        if (!StringUtils.hasText(value)) {
+            return new ArrayList<>();
+        }
+
+        return current.find(attribute, attribute == IdentityPropertyType.USERNAME || attribute == IdentityPropertyType.EMAIL
+            ? value.toLowerCase() : value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isIndexed(IdentityPropertyType attribute) {
+        return index != null && INDEXED.contains(attribute);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> findUserIds(Map<IdentityPropertyType, String> searchFilter) {
+
+        // single business key is resolved by index
+        if (searchFilter.size() == 1 && INDEXED.containsAll(searchFilter.keySet())) {
+            Map.Entry<IdentityPropertyType, String> key = searchFilter.entrySet().iterator().next();
+            return findUserIdsByAttribute(key.getKey(), key.getValue());
+        }
+
+        return searchServiceImpl.findUserIds(searchFilter);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public KeysetPage<String> findUserIds(Map<IdentityPropertyType, String> searchFilter, KeysetRequest page) {
+        return searchServiceImpl.findUserIds(searchFilter, page);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void streamIdentityProjections(IdentityPropertyType attribute, String value, Consumer<IdentityProjection> consumer) {
+        searchServiceImpl.streamIdentityProjections(attribute, value, consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<PinIdentityProjection> findPinIdentity(String username) {
+        return searchServiceImpl.findPinIdentity(username);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> findAccountIdsByAttribute(AccountPropertyType attribute, String value) {
+        return searchServiceImpl.findAccountIdsByAttribute(attribute, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasCredentials(String identityId) {
+        return !findUserIdsWithCredentials(Arrays.asList(identityId)).isEmpty();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> findUserIdsWithCredentials(Collection<String> identityIds) {
+
+        UserKeyIndex current = index;
+        if (current == null || !credentialsIndexed) {
+            return searchServiceImpl.findUserIdsWithCredentials(identityIds);
+        }
+
+        Set<String> found = current.withCredentials(identityIds);
+        List<String> unknown = identityIds.stream().filter(id -> !found.contains(id)).collect(Collectors.toList());
+        if (!unknown.isEmpty()) {
+            Set<String> created = searchServiceImpl.findUserIdsWithCredentials(unknown);
+            created.forEach(userId -> current.setCredentials(userId, true));
+            found.addAll(created);
+        }
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getMasterGroupId(String masterGroup) {
+        return searchServiceImpl.getMasterGroupId(masterGroup);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<String> findBinaryMaskForRole(String roleId) {
+        return searchServiceImpl.findBinaryMaskForRole(roleId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Set<String>> findRoleMappingsByUserIds(Collection<String> userIds) {
+        return searchServiceImpl.findRoleMappingsByUserIds(userIds);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<String> getValueByAttributeOfUserId(IdentityPropertyType attribute, String userId) {
+        return searchServiceImpl.getValueByAttributeOfUserId(attribute, userId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<IdentityProjection> findIdentityProjections(IdentityPropertyType attribute, String value) {
+        return searchServiceImpl.findIdentityProjections(attribute, value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<UserEntity> findUsersByIds(Collection<String> userIds) {
+        return searchServiceImpl.findUsersByIds(userIds);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Map<String, List<String>>> findUserAttributesByIds(Collection<String> userIds) {
+        return searchServiceImpl.findUserAttributesByIds(userIds);
+    }
+
+    /**
+     * Index (attribute, value) → User's IDs, readers are lock-free, writers are serialized.
+     */
+    static final class UserKeyIndex {
+
+        private final Map<IdentityPropertyType, Map<String, Set<String>>> keys = new EnumMap<>(IdentityPropertyType.class);
+
+        private final Map<String, List<Object[]>> keysOfUser = new ConcurrentHashMap<>();
+
+        private final Map<String, Integer> ordinals = new HashMap<>();
+
+        private final BitSet credentials = new BitSet();
+
+        UserKeyIndex() {
+            INDEXED.forEach(type -> keys.put(type, new ConcurrentHashMap<>()));
+        }
+
+        int size() {
+            return keysOfUser.size();
+        }
+
+        List<String> find(IdentityPropertyType type, String value) {
+            Set<String> userIds = keys.get(type).get(value);
+            return userIds == null ? new ArrayList<>() : new ArrayList<>(userIds);
+        }
+
+        /**
+         * Adds row [userId, attribute name, value].
+         */
+        synchronized void add(Object[] row) {
+            IdentityPropertyType type = BY_NAME.get(row[1]);
+            if (type != null && row[2] != null) {
+                String userId = (String) row[0];
+                keys.get(type).computeIfAbsent((String) row[2], k -> ConcurrentHashMap.newKeySet()).add(userId);
+                keysOfUser.computeIfAbsent(userId, k -> new ArrayList<>()).add(row);
+            }
+        }
+
+        synchronized void setCredentials(String userId, boolean value) {
+            Integer ordinal = ordinals.get(userId);
+            if (ordinal == null) {
+                if (!value) {
+                    return;
+                }
+                ordinal = ordinals.size();
+                ordinals.put(userId, ordinal);
+            }
+            credentials.set(ordinal, value);
+        }
+
+        synchronized Set<String> withCredentials(Collection<String> userIds) {
+            Set<String> found = new HashSet<>();
+            for (String userId : userIds) {
+                Integer ordinal = ordinals.get(userId);
+                if (ordinal != null && credentials.get(ordinal)) {
+                    found.add(userId);
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Replaces all keys of User (no rows when User is deleted).
+         */
+        synchronized void replace(String userId, List<Object[]> rows) {
+
+            // new keys are visible before stale keys are removed, unchanged key is never missing for readers
+            Set<List<Object>> current = new HashSet<>();
+            List<Object[]> added = new ArrayList<>();
+            for (Object[] row : rows) {
+                IdentityPropertyType type = BY_NAME.get(row[1]);
+                if (type != null && row[2] != null) {
+                    keys.get(type).computeIfAbsent((String) row[2], k -> ConcurrentHashMap.newKeySet()).add(userId);
+                    current.add(Arrays.asList(row[1], row[2]));
+                    added.add(row);
+                }
+            }
+
+            List<Object[]> old = added.isEmpty() ? keysOfUser.remove(userId) : keysOfUser.put(userId, added);
+            if (old == null) {
+                return;
+            }
+            for (Object[] row : old) {
+                if (current.contains(Arrays.asList(row[1], row[2]))) {
+                    continue;
+                }
+                Map<String, Set<String>> values = keys.get(BY_NAME.get(row[1]));
+                Set<String> userIds = values.get(row[2]);
+                if (userIds != null) {
+                    userIds.remove(userId);
+                    if (userIds.isEmpty()) {
+                        values.remove(row[2]);
+                    }
+                }
+            }
+        }
+    }
+}
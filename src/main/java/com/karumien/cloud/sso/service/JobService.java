@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.List;
+
+import com.karumien.cloud.sso.api.model.JobInfo;
+import com.karumien.cloud.sso.api.model.JobType;
+import com.karumien.cloud.sso.exceptions.JobNotFoundException;
+
+/**
+ * Service provides durable asynchronous Jobs processed by worker pool of any node (lease with heartbeat, checkpoint per
+ * Account).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 22:17:45
+ */
+public interface JobService {
+
+    /**
+     * Create Job propagating Modules to Identities of Accounts in SSO, Job is started after commit of current
+     * transaction.
+     *
+     * @param type
+     *            activation or deactivation
+     * @param modules
+     *            Module IDs
+     * @param accountNumbers
+     *            Account Numbers
+     * @param applyRoles
+     *            add default roles to Identities (activation)
+     * @return ID of Job
+     */
+    String createModulesJob(JobType type, List<String> modules, List<String> accountNumbers, Boolean applyRoles);
+
+    /**
+     * Progress of Job.
+     *
+     * @param jobId
+     *            ID of Job
+     * @return {@link JobInfo} state, counts and failures
+     * @throws JobNotFoundException
+     *             when Job not exists
+     */
+    JobInfo getJob(String jobId);
+
+    /**
+     * Start queued Jobs (and Jobs of stopped nodes) on free workers.
+     */
+    void dispatch();
+
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karumien.cloud.sso.api.entity.JobEntity;
+import com.karumien.cloud.sso.api.model.IdentityInfo;
+import com.karumien.cloud.sso.api.model.JobFailure;
+import com.karumien.cloud.sso.api.model.JobInfo;
+import com.karumien.cloud.sso.api.model.JobState;
+import com.karumien.cloud.sso.api.model.JobType;
+import com.karumien.cloud.sso.api.repository.JobEntityRepository;
+import com.karumien.cloud.sso.exceptions.DeadlineExceededException;
+import com.karumien.cloud.sso.exceptions.JobNotFoundException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of {@link JobService} - Jobs are stored in PLUGIN_JOB, identities of Account are processed in chunks
+ * by {@link FanOutService} and progress is checkpointed after every Account (resumed Job continues by next Account).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 22:26:19
+ */
+@Slf4j
+@Service
+public class JobServiceImpl implements JobService {
+
+    private static final TypeReference<List<JobFailure>> FAILURES = new TypeReference<List<JobFailure>>() { };
+
+    private static final int MAX_ERROR = 1024;
+
+    @Value("${job.workers:2}")
+    private int workers;
+
+    @Value("${job.chunk-size:100}")
+    private int chunkSize;
+
+    /** Running Job without heartbeat for lease (ms) is taken by other node */
+    @Value("${job.lease:120000}")
+    private long lease;
+
+    @Value("${job.max-failures:100}")
+    private int maxFailures;
+
+    @Autowired
+    private JobEntityRepository jobEntityRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private FanOutService fanOutService;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    private final String node = ManagementFactory.getRuntimeMXBean().getName();
+
+    /** Jobs running on this node */
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            new CustomizableThreadFactory("job-"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // interrupted Jobs are resumed by other node after lease
+        executor.shutdownNow();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String createModulesJob(JobType type, List<String> modules, List<String> accountNumbers, Boolean applyRoles) {
+
+        JobEntity job = new JobEntity();
+        job.setId(UUID.randomUUID().toString());
+        job.setType(type.toString());
+        job.setState(JobState.QUEUED.toString());
+        job.setModules(StringUtils.collectionToCommaDelimitedString(modules));
+        job.setAccounts(StringUtils.collectionToCommaDelimitedString(accountNumbers));
+        job.setApplyRoles(applyRoles);
+        job.setAccountsTotal(accountNumbers.size());
+        job.setCreated(LocalDateTime.now());
+        jobEntityRepository.save(job);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    dispatch();
+                }
+            });
+        } else {
+            dispatch();
+        }
+
+        return job.getId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JobInfo getJob(String jobId) {
+        return jobEntityRepository.findById(jobId).map(this::mapping).orElseThrow(() -> new JobNotFoundException(jobId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Scheduled(initialDelayString = "${job.poll:5000}", fixedDelayString = "${job.poll:5000}")
+    public synchronized void dispatch() {
+
+        int free = workers - running.size();
+        if (free <= 0) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expired = now.minusNanos(TimeUnit.MILLISECONDS.toNanos(lease));
+
+        for (String jobId : jobEntityRepository.findRunnableIds(expired, PageRequest.of(0, free))) {
+            if (!running.contains(jobId) && jobEntityRepository.claim(jobId, node, now, expired) == 1) {
+                running.add(jobId);
+                executor.execute(() -> {
+                    try {
+                        run(jobId);
+                    } finally {
+                        running.remove(jobId);
+                    }
+                });
+            }
+        }
+    }
+
+    private void run(String jobId) {
+
+        JobEntity job = jobEntityRepository.findById(jobId).orElseThrow(() -> new JobNotFoundException(jobId));
+        MDC.put("jobId", jobId);
+        try {
+            JobType type = JobType.fromValue(job.getType());
+            boolean applyRoles = type == JobType.ACTIVATE_MODULES && Boolean.TRUE.equals(job.getApplyRoles());
+            List<String> accounts = split(job.getAccounts());
+            List<JobFailure> failures = readFailures(job);
+
+            log.info("Job {} {} started on account {} of {}", jobId, type, job.getAccountIndex(), accounts.size());
+
+            for (int i = job.getAccountIndex(); i < accounts.size(); i++) {
+
+                String accountNumber = accounts.get(i);
+                List<IdentityInfo> identities = accountService.getAccountIdentities(accountNumber, null, null, false).stream()
+                    .filter(identity -> type == JobType.DEACTIVATE_MODULES || identity.getNav4Id() != null)
+                    .collect(Collectors.toList());
+
+                int failed = 0;
+                // heartbeat before every chunk (also for account without identities)
+                for (int from = 0; from == 0 || from < identities.size(); from += chunkSize) {
+                    if (jobEntityRepository.heartbeat(jobId, node, LocalDateTime.now()) == 0) {
+                        log.warn("Job {} lease lost on account {}", jobId, accountNumber);
+                        return;
+                    }
+                    for (JobFailure failure : propagate(accountNumber, identities.subList(from, Math.min(from + chunkSize, identities.size())),
+                            applyRoles)) {
+                        if (failure != null) {
+                            failed++;
+                            if (failures.size() < maxFailures) {
+                                failures.add(failure);
+                            }
+                        }
+                    }
+                }
+
+                // checkpoint of account
+                job.setAccountIndex(i + 1);
+                job.setIdentitiesProcessed(job.getIdentitiesProcessed() + identities.size());
+                job.setIdentitiesFailed(job.getIdentitiesFailed() + failed);
+                job.setFailures(mapper.writeValueAsString(failures));
+                job.setHeartbeat(LocalDateTime.now());
+                if (jobEntityRepository.checkpoint(jobId, node, job.getAccountIndex(), job.getIdentitiesProcessed(),
+                        job.getIdentitiesFailed(), job.getFailures(), job.getHeartbeat()) == 0) {
+                    log.warn("Job {} lease lost on account {}", jobId, accountNumber);
+                    return;
+                }
+            }
+
+            if (finish(job, JobState.FINISHED, null)) {
+                log.info("Job {} finished: identities {}, failed {}", jobId, job.getIdentitiesProcessed(), job.getIdentitiesFailed());
+            }
+
+        } catch (IOException | RuntimeException e) {
+            log.error("Job " + jobId + " failed", e);
+            finish(job, JobState.FAILED, e.getMessage());
+        } finally {
+            MDC.remove("jobId");
+        }
+    }
+
+    /**
+     * Propagation of one chunk, deadline of chunk (slow KeyCloak) fails identities of chunk and not whole Job.
+     *
+     * @return {@link List} failure of every identity (null when propagated)
+     */
+    private List<JobFailure> propagate(String accountNumber, List<IdentityInfo> identities, boolean applyRoles) {
+        try {
+            return fanOutService.map("job", identities, identity -> propagate(accountNumber, identity, applyRoles));
+        } catch (DeadlineExceededException e) {
+            log.warn("Job chunk of account {} interrupted: {}", accountNumber, e.getMessage());
+            return identities.stream()
+                .map(identity -> new JobFailure().accountNumber(accountNumber).identityId(identity.getIdentityId()).message(e.getMessage()))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private JobFailure propagate(String accountNumber, IdentityInfo identity, boolean applyRoles) {
+        try {
+            moduleService.refreshIdentityModules(identity.getIdentityId(), applyRoles);
+            return null;
+        } catch (RuntimeException e) {
+            return new JobFailure().accountNumber(accountNumber).identityId(identity.getIdentityId()).message(e.getMessage());
+        }
+    }
+
+    /**
+     * Finish Job, not stored when other node took Job meanwhile.
+     *
+     * @return false when lease was lost
+     */
+    private boolean finish(JobEntity job, JobState state, String error) {
+        job.setState(state.toString());
+        job.setError(error != null && error.length() > MAX_ERROR ? error.substring(0, MAX_ERROR) : error);
+        job.setFinished(LocalDateTime.now());
+        if (jobEntityRepository.finish(job.getId(), node, job.getState(), job.getError(), job.getFinished()) == 0) {
+            log.warn("Job {} lease lost, {} not stored", job.getId(), state);
+            return false;
+        }
+        return true;
+    }
+
+    private JobInfo mapping(JobEntity job) {
+        JobInfo jobInfo = new JobInfo();
+        jobInfo.setJobId(job.getId());
+        jobInfo.setType(JobType.fromValue(job.getType()));
+        jobInfo.setState(JobState.fromValue(job.getState()));
+        jobInfo.setModules(split(job.getModules()));
+        jobInfo.setAccountsTotal(job.getAccountsTotal());
+        jobInfo.setAccountsProcessed(job.getAccountIndex());
+        jobInfo.setIdentitiesProcessed(job.getIdentitiesProcessed());
+        jobInfo.setIdentitiesFailed(job.getIdentitiesFailed());
+        try {
+            jobInfo.setFailures(readFailures(job));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        jobInfo.setError(job.getError());
+        jobInfo.setCreated(offset(job.getCreated()));
+        jobInfo.setFinished(offset(job.getFinished()));
+        return jobInfo;
+    }
+
+    private List<JobFailure> readFailures(JobEntity job) throws IOException {
+        return StringUtils.hasText(job.getFailures()) ? mapper.readValue(job.getFailures(), FAILURES) : new ArrayList<>();
+    }
+
+    private static List<String> split(String values) {
+        return new ArrayList<>(Arrays.asList(StringUtils.commaDelimitedListToStringArray(values)));
+    }
+
+    private static OffsetDateTime offset(LocalDateTime time) {
+        return time == null ? null : time.atZone(ZoneId.systemDefault()).toOffsetDateTime();
+    }
+}
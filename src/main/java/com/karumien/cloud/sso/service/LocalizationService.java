@@ -36,5 +36,11 @@ public interface LocalizationService {
      */
     String translate(String localeKey, Map<String, List<String>> attributes, Locale locale, String defaultTranslate);
 
+    /**
+     * Precompiled texts of i18n bundles for all supported languages.
+     * 
+     * @return {@link TranslationCatalog} of i18n bundles
+     */
+    TranslationCatalog getMessages();
 
 }
@@ -17,22 +17,40 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.MessageSource;
+import javax.annotation.PostConstruct;
+
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import com.karumien.cloud.sso.HeaderLocaleResolver;
+
+import lombok.extern.slf4j.Slf4j;
+
 /**
  * Implementation of {@link LocalizationService} for translations.
  *
  * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
  * @since 1.0, 19. 8. 2019 12:58:57
  */
+@Slf4j
 @Service
 public class LocalizationServiceImpl implements LocalizationService {
 
-    @Autowired
-    private MessageSource messageSource;
+    private TranslationCatalog messages;
+
+    @PostConstruct
+    public void init() {
+        messages = TranslationCatalog.load(HeaderLocaleResolver.SUPPORTED_LOCALES, HeaderLocaleResolver.MESSAGES);
+        log.info("Translations loaded: {} keys", messages.size());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TranslationCatalog getMessages() {
+        return messages;
+    }
 
     /**
      * {@inheritDoc}
@@ -41,7 +59,8 @@ public class LocalizationServiceImpl implements LocalizationService {
     public String translate(String localeKey, Map<String, List<String>> attributes, Locale locale, String defaultTranslate) {
         String translate = null;
         if (attributes != null) {
-            List<String> translates = attributes.get(ATTR_TRANSLATION + "[" + locale.getLanguage() + "]");
+            String attributeName = messages.attributeName(locale);
+            List<String> translates = attributeName == null ? null : attributes.get(attributeName);
             if (!CollectionUtils.isEmpty(translates)) {
                 translate = translates.get(0);
             }
@@ -52,11 +71,8 @@ public class LocalizationServiceImpl implements LocalizationService {
                 }
             }
         }
-        if (translate == null && localeKey != null) {
-            translate = messageSource.getMessage(localeKey, null, locale);
-            if (localeKey.equals(translate)) {
-                translate = null;
-            }
+        if (translate == null) {
+            translate = messages.get(localeKey, locale);
         }
         if (translate == null) {
             translate = defaultTranslate;
@@ -39,9 +39,29 @@ public interface ModuleService {
 
     void deleteModule(String moduleId);
 
-    void activateModules(List<String> modules, List<String> accountNumber, Boolean applyRoles);
-        
-    void deactivateModules(List<String> modules, List<String> accountNumber);
+    /**
+     * Activate Modules on Accounts, Identities are updated in SSO by asynchronous Job.
+     *
+     * @return ID of Job propagating Modules to Identities
+     */
+    String activateModules(List<String> modules, List<String> accountNumber, Boolean applyRoles);
+
+    /**
+     * Deactivate Modules on Accounts, Identities are updated in SSO by asynchronous Job.
+     *
+     * @return ID of Job propagating Modules to Identities
+     */
+    String deactivateModules(List<String> modules, List<String> accountNumber);
+
+    /**
+     * Propagate active Modules of Account to Identity in SSO (binary roles).
+     *
+     * @param identityId
+     *            ID of Identity
+     * @param applyRoles
+     *            add {@link #TLM_DEFAULT_ROLES} to Identity
+     */
+    void refreshIdentityModules(String identityId, boolean applyRoles);
 
     List<ModuleInfo> getAccountModules(String accountNumber);
 
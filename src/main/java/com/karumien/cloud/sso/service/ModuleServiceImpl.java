@@ -26,10 +26,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.karumien.cloud.sso.api.UpdateType;
 import com.karumien.cloud.sso.api.entity.AccountModule;
 import com.karumien.cloud.sso.api.entity.AccountModuleID;
+import com.karumien.cloud.sso.api.model.JobType;
 import com.karumien.cloud.sso.api.model.ModuleInfo;
 import com.karumien.cloud.sso.api.model.RoleInfo;
 import com.karumien.cloud.sso.api.repository.AccountModuleRepository;
@@ -64,6 +66,15 @@ public class ModuleServiceImpl implements ModuleService {
     @Autowired 
     private AccountModuleRepository accountModuleRepository;
 
+    @Autowired
+    private RoleCatalogService roleCatalogService;
+
+    @Autowired
+    private JobService jobService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * {@inheritDoc}
      */
@@ -155,62 +166,65 @@ public class ModuleServiceImpl implements ModuleService {
      * {@inheritDoc}
      */
     @Override
-    @Transactional
-    public void activateModules(List<String> modules, List<String> accountNumbers, Boolean applyRoles) {
+    public String activateModules(List<String> modules, List<String> accountNumbers, Boolean applyRoles) {
         
-        List<String> modulesToAdd = modules.stream().map(moduleId -> findModule(moduleId))
+        // KeyCloak phase without DB connection
+        List<String> modulesToAdd = findModuleNames(modules);
+        
+        // DB phase, job is committed together with modules and updates SSO after commit
+        return transactionTemplate.execute(status -> {
+            for (String accountNumber : accountNumbers) {
+                
+                List<String> existingModules = accountModuleRepository.findIdsByAccount(accountNumber);            
+                modulesToAdd.stream()
+                    .filter(m -> !existingModules.contains(m))
+                    .forEach(m -> activateModule(accountNumber, m));
+            }
+            return jobService.createModulesJob(JobType.ACTIVATE_MODULES, modulesToAdd, accountNumbers, applyRoles);
+        });
+    }
+
+    private List<String> findModuleNames(List<String> modules) {
+        return modules.stream().map(moduleId -> findModule(moduleId))
             .filter(module -> module.isPresent())
             .map(module -> getModuleName(module.get().toRepresentation().getName()))
             .collect(Collectors.toList());
-        
-        for (String accountNumber : accountNumbers) {
-            
-            List<String> existingModules = accountModuleRepository.findIdsByAccount(accountNumber);            
-            modulesToAdd.stream()
-                .filter(m -> !existingModules.contains(m))
-                .forEach(m -> activateModule(accountNumber, m));
-            
-            accountService.getAccountIdentities(accountNumber, null, null, false).stream()
-                .filter(identity -> identity.getNav4Id() != null)
-                .forEach(identity -> {
-                    if (Boolean.TRUE.equals(applyRoles)) {
-                        identityService.updateRolesOfIdentity(identity.getIdentityId(), TLM_DEFAULT_ROLES, UpdateType.ADD, null);
-                    }
-                    identityService.refreshBinaryRoles(keycloak.realm(realm).users().get(identity.getIdentityId()));
-                });
-        }
-        
     }
    
     /**
      * {@inheritDoc}
      */
     @Override
-    @Transactional
-    public void deactivateModules(List<String> modules, List<String> accountNumbers) {
+    public String deactivateModules(List<String> modules, List<String> accountNumbers) {
         
-        List<String> modulesToDel = modules.stream().map(moduleId -> findModule(moduleId))
-            .filter(module -> module.isPresent())
-            .map(module -> getModuleName(module.get().toRepresentation().getName()))
-            .collect(Collectors.toList());
+        List<String> modulesToDel = findModuleNames(modules);
         
-        for (String accountNumber : accountNumbers) {
-            
-            accountModuleRepository.findIdsByAccount(accountNumber).stream()
-                .filter(m -> modulesToDel.contains(m))
-                .forEach(m -> deactivateModule(accountNumber, m));
-            
-            accountService.getAccountIdentities(accountNumber, null, null, false)
-                .forEach(identity -> identityService.refreshBinaryRoles(keycloak.realm(realm).users().get(identity.getIdentityId())));
-        }
+        return transactionTemplate.execute(status -> {
+            for (String accountNumber : accountNumbers) {
+                
+                accountModuleRepository.findIdsByAccount(accountNumber).stream()
+                    .filter(m -> modulesToDel.contains(m))
+                    .forEach(m -> deactivateModule(accountNumber, m));
+            }
+            return jobService.createModulesJob(JobType.DEACTIVATE_MODULES, modulesToDel, accountNumbers, false);
+        });
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refreshIdentityModules(String identityId, boolean applyRoles) {
+        if (applyRoles) {
+            identityService.updateRolesOfIdentity(identityId, TLM_DEFAULT_ROLES, UpdateType.ADD, null);
+        }
+        identityService.refreshBinaryRoles(keycloak.realm(realm).users().get(identityId));
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    @Transactional(readOnly = true)
     public List<ModuleInfo> getAccountModules(String accountNumber) {
         return accountModuleRepository.findIdsByAccount(accountNumber).stream()
             .map(m -> findModule(m))
@@ -224,7 +238,6 @@ public class ModuleServiceImpl implements ModuleService {
      * {@inheritDoc}
      */
     @Override
-    @Transactional(readOnly = true)
     public List<String> getAccountModulesSimple(String accountNumber) {
         List<ModuleInfo> info = getAccountModules(accountNumber);
         return info.stream().map(module -> module.getModuleId()).collect(Collectors.toList());                
@@ -244,7 +257,7 @@ public class ModuleServiceImpl implements ModuleService {
      */
     @Override
     public List<ModuleInfo> getModules() {
-        return keycloak.realm(realm).roles().list().stream()
+        return roleCatalogService.getCatalog().getRoles().stream()
             .filter(role -> role.getName().startsWith(ModuleService.MODULE_PREFIX))
             .map(role -> mapping(role))
             .collect(Collectors.toList());
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.karumien.cloud.sso.api.model.OnBoardingInfo;
+import com.karumien.cloud.sso.api.model.OnBoardingItemResult;
+
+/**
+ * Service provides bulk onboarding of Accounts and Identities (migrations) with result of every item.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 23:06:18
+ */
+public interface OnboardingService {
+
+    /**
+     * Onboarding of batch - whole batch is validated first, new Accounts are created in one JDBC batch, Identities
+     * (with roles and credentials) are processed in parallel. Failure of item does not stop other items.
+     *
+     * @param onBoardingInfos
+     *            Accounts/Identities/Roles to import
+     * @return {@link List} result of every item in order of batch
+     */
+    List<OnBoardingItemResult> onboarding(List<OnBoardingInfo> onBoardingInfos);
+
+    /**
+     * Streaming onboarding with constant memory - records are read in windows of {@code onboarding.window-size}, every
+     * window is processed as batch of {@link #onboarding(List)} and next window is read after results of previous
+     * window are consumed (duplicates are detected inside window only). Error of window gives FAILED result of its
+     * items and stream continues, malformed record stops reading, its result is INVALID.
+     *
+     * @param onBoardingInfos
+     *            incrementally parsed records
+     * @param results
+     *            consumer of results of every window (index of item is position in stream)
+     * @return count of read records
+     */
+    int onboarding(Iterator<OnBoardingInfo> onBoardingInfos, Consumer<List<OnBoardingItemResult>> results);
+
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import com.karumien.cloud.sso.api.UpdateType;
+import com.karumien.cloud.sso.api.entity.AccountEntity;
+import com.karumien.cloud.sso.api.model.AccountInfo;
+import com.karumien.cloud.sso.api.model.IdentityInfo;
+import com.karumien.cloud.sso.api.model.IdentityState;
+import com.karumien.cloud.sso.api.model.OnBoardingInfo;
+import com.karumien.cloud.sso.api.model.OnBoardingItemResult;
+import com.karumien.cloud.sso.api.model.OnBoardingItemStatus;
+import com.karumien.cloud.sso.exceptions.DeadlineExceededException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of {@link OnboardingService} - Identities are processed in chunks on {@link FanOutService}, every
+ * item runs its steps (identity, roles, credentials) on one worker while other items run in parallel.
+ * Streamed records are processed in windows of {@code onboarding.window-size}, so memory does not depend on size of
+ * stream.
+ * <p>
+ * Throughput target is {@code onboarding.target-rate} items/s per node - default 40 is estimate (fan-out of 8 workers,
+ * ~200 ms of KeyCloak calls per item), not measured; slower batches are logged as warning.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 23:06:18
+ */
+@Slf4j
+@Service
+public class OnboardingServiceImpl implements OnboardingService {
+
+    /** Lengths of columns of {@link AccountEntity} */
+    private static final int MAX_ACCOUNT_NUMBER = 36;
+
+    private static final int MAX_ACCOUNT_TEXT = 255;
+
+    private static final int MAX_ACCOUNT_NOTE = 1024;
+
+    private static final int MAX_ACCOUNT_LOCALE = 50;
+
+    @Value("${onboarding.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${onboarding.window-size:1000}")
+    private int windowSize;
+
+    @Value("${onboarding.target-rate:40}")
+    private double targetRate;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private IdentityService identityService;
+
+    @Autowired
+    private FanOutService fanOutService;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<OnBoardingItemResult> onboarding(List<OnBoardingInfo> onBoardingInfos) {
+        long start = System.nanoTime();
+        List<OnBoardingItemResult> results = process(onBoardingInfos, 0);
+        logRate(onBoardingInfos.size(), start);
+        return results;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int onboarding(Iterator<OnBoardingInfo> onBoardingInfos, Consumer<List<OnBoardingItemResult>> results) {
+
+        long start = System.nanoTime();
+        List<OnBoardingInfo> window = new ArrayList<>(windowSize);
+        int offset = 0;
+
+        while (true) {
+            try {
+                if (!onBoardingInfos.hasNext()) {
+                    break;
+                }
+                window.add(onBoardingInfos.next());
+            } catch (RuntimeException e) {
+                // position in stream is lost, rest of stream is not processed
+                log.warn("Onboarding stream stopped at record {}: {}", offset + window.size(), e.getMessage());
+                if (!window.isEmpty()) {
+                    results.accept(processWindow(window, offset));
+                    offset += window.size();
+                }
+                results.accept(Collections.singletonList(new OnBoardingItemResult().index(offset)
+                    .status(OnBoardingItemStatus.INVALID).message("Malformed record: " + e.getMessage())));
+                logRate(++offset, start);
+                return offset;
+            }
+            if (window.size() == windowSize) {
+                results.accept(processWindow(window, offset));
+                offset += window.size();
+                window.clear();
+            }
+        }
+
+        if (!window.isEmpty()) {
+            results.accept(processWindow(window, offset));
+            offset += window.size();
+        }
+        logRate(offset, start);
+        return offset;
+    }
+
+    /**
+     * Onboarding of one window of stream, error of window does not stop the stream.
+     *
+     * @return {@link List} result of every item in order of window
+     */
+    private List<OnBoardingItemResult> processWindow(List<OnBoardingInfo> onBoardingInfos, int offset) {
+        try {
+            return process(onBoardingInfos, offset);
+        } catch (RuntimeException e) {
+            log.warn("Onboarding window {}-{} failed: {}", offset, offset + onBoardingInfos.size() - 1, e.getMessage());
+            List<OnBoardingItemResult> results = new ArrayList<>(onBoardingInfos.size());
+            for (int i = 0; i < onBoardingInfos.size(); i++) {
+                results.add(result(offset + i, onBoardingInfos.get(i), Collections.emptySet()).status(OnBoardingItemStatus.FAILED)
+                    .message(e.getMessage()));
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Onboarding of one batch.
+     *
+     * @param onBoardingInfos
+     *            items of batch
+     * @param offset
+     *            index of first item
+     * @return {@link List} result of every item in order of batch
+     */
+    private List<OnBoardingItemResult> process(List<OnBoardingInfo> onBoardingInfos, int offset) {
+
+        AtomicReferenceArray<OnBoardingItemResult> results = new AtomicReferenceArray<>(onBoardingInfos.size());
+
+        List<Integer> valid = validate(onBoardingInfos, offset, results);
+
+        // distinct accounts (first item wins), existing accounts are not changed
+        Map<String, AccountInfo> accounts = new LinkedHashMap<>();
+        for (int i : valid) {
+            OnBoardingInfo onBoardingInfo = onBoardingInfos.get(i);
+            AccountInfo account = onBoardingInfo.getAccount();
+            if (account != null && !accounts.containsKey(account.getAccountNumber())) {
+                if (StringUtils.isEmpty(account.getNote())) {
+                    account.setNote(onBoardingInfo.getNote());
+                }
+                accounts.put(account.getAccountNumber(), account);
+            }
+        }
+        Set<String> created = Collections.emptySet();
+        if (!accounts.isEmpty()) {
+            try {
+                created = accountService.createAccounts(accounts.values());
+            } catch (RuntimeException e) {
+                // whole JDBC batch is rolled back - items with Account failed, items of existing Accounts continue
+                log.warn("Onboarding accounts {}-{} failed: {}", offset, offset + onBoardingInfos.size() - 1, e.getMessage());
+                for (Iterator<Integer> it = valid.iterator(); it.hasNext();) {
+                    int i = it.next();
+                    if (onBoardingInfos.get(i).getAccount() != null) {
+                        results.set(i, result(offset + i, onBoardingInfos.get(i), created).status(OnBoardingItemStatus.FAILED)
+                            .message("account: " + e.getMessage()));
+                        it.remove();
+                    }
+                }
+            }
+        }
+        Set<String> createdAccounts = created;
+
+        for (int from = 0; from < valid.size(); from += chunkSize) {
+            List<Integer> chunk = valid.subList(from, Math.min(from + chunkSize, valid.size()));
+            try {
+                fanOutService.forEach("onboarding-bulk", chunk,
+                    i -> results.compareAndSet(i, null, onboarding(offset + i, onBoardingInfos.get(i), createdAccounts)));
+            } catch (RuntimeException e) {
+                // not finished items could be still running (deadline) - outcome is unknown, late results are ignored
+                log.warn("Onboarding chunk {}-{} interrupted: {}", offset + chunk.get(0), offset + chunk.get(chunk.size() - 1), e.getMessage());
+                OnBoardingItemStatus status = e instanceof DeadlineExceededException ? OnBoardingItemStatus.TIMED_OUT : OnBoardingItemStatus.FAILED;
+                chunk.forEach(i -> results.compareAndSet(i, null,
+                    result(offset + i, onBoardingInfos.get(i), createdAccounts).status(status).message(e.getMessage())));
+            }
+        }
+
+        List<OnBoardingItemResult> list = new ArrayList<>(results.length());
+        for (int i = 0; i < results.length(); i++) {
+            list.add(results.get(i));
+        }
+        return list;
+    }
+
+    private void logRate(int count, long start) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        double rate = count * 1000d / Math.max(millis, 1);
+        if (count >= chunkSize && rate < targetRate) {
+            log.warn("Onboarding of {} items took {} ms ({} items/s, target {})", count, millis, (long) rate, targetRate);
+        } else {
+            log.info("Onboarding of {} items took {} ms ({} items/s)", count, millis, (long) rate);
+        }
+    }
+
+    /**
+     * Validation of whole batch, rejected items get result immediately.
+     *
+     * @return {@link List} indexes of valid items
+     */
+    private List<Integer> validate(List<OnBoardingInfo> onBoardingInfos, int offset, AtomicReferenceArray<OnBoardingItemResult> results) {
+
+        List<Integer> valid = new ArrayList<>(onBoardingInfos.size());
+        Set<String> identities = new HashSet<>();
+
+        for (int i = 0; i < onBoardingInfos.size(); i++) {
+            OnBoardingInfo onBoardingInfo = onBoardingInfos.get(i);
+            String error = validate(onBoardingInfo);
+            if (error != null) {
+                results.set(i, result(offset + i, onBoardingInfo, Collections.emptySet()).status(OnBoardingItemStatus.INVALID).message(error));
+            } else if (onBoardingInfo.getIdentity() != null && !addIdentityKeys(identities, onBoardingInfo.getIdentity())) {
+                results.set(i, result(offset + i, onBoardingInfo, Collections.emptySet()).status(OnBoardingItemStatus.DUPLICATE)
+                    .message("Identity is already in batch"));
+            } else {
+                valid.add(i);
+            }
+        }
+        return valid;
+    }
+
+    private String validate(OnBoardingInfo onBoardingInfo) {
+        if (onBoardingInfo == null || onBoardingInfo.getAccount() == null && onBoardingInfo.getIdentity() == null) {
+            return "Account or Identity is required";
+        }
+        AccountInfo account = onBoardingInfo.getAccount();
+        if (account != null && (!StringUtils.hasText(account.getAccountNumber()) || !StringUtils.hasText(account.getName()))) {
+            return "Account number and name are required";
+        }
+        if (account != null) {
+            String note = StringUtils.isEmpty(account.getNote()) ? onBoardingInfo.getNote() : account.getNote();
+            if (tooLong(account.getAccountNumber(), MAX_ACCOUNT_NUMBER) || tooLong(account.getName(), MAX_ACCOUNT_TEXT)
+                || tooLong(account.getCompRegNo(), MAX_ACCOUNT_TEXT) || tooLong(account.getContactEmail(), MAX_ACCOUNT_TEXT)
+                || tooLong(note, MAX_ACCOUNT_NOTE) || tooLong(account.getLocale(), MAX_ACCOUNT_LOCALE)) {
+                return "Account number max " + MAX_ACCOUNT_NUMBER + ", name/company/email max " + MAX_ACCOUNT_TEXT + ", note max "
+                    + MAX_ACCOUNT_NOTE + " and locale max " + MAX_ACCOUNT_LOCALE + " characters";
+            }
+        }
+        IdentityInfo identity = onBoardingInfo.getIdentity();
+        if (identity != null) {
+            if (!StringUtils.hasText(identity.getContactNumber()) && !StringUtils.hasText(identity.getNav4Id())) {
+                return "Identity contact number or nav4Id is required";
+            }
+            if (!StringUtils.hasText(identity.getAccountNumber()) && account == null) {
+                return "Identity account number is required";
+            }
+        }
+        return null;
+    }
+
+    private static boolean tooLong(String value, int max) {
+        return value != null && value.length() > max;
+    }
+
+    /**
+     * Registers every key of Identity (nav4Id and contact number), items sharing any key would create the same Identity
+     * in parallel.
+     *
+     * @return false when any key is already in batch (nothing registered)
+     */
+    private boolean addIdentityKeys(Set<String> identities, IdentityInfo identity) {
+        List<String> keys = new ArrayList<>(2);
+        if (StringUtils.hasText(identity.getNav4Id())) {
+            keys.add("nav4:" + identity.getNav4Id());
+        }
+        if (StringUtils.hasText(identity.getContactNumber())) {
+            keys.add("contact:" + identity.getContactNumber());
+        }
+        if (keys.stream().anyMatch(identities::contains)) {
+            return false;
+        }
+        identities.addAll(keys);
+        return true;
+    }
+
+    private OnBoardingItemResult result(int index, OnBoardingInfo onBoardingInfo, Set<String> createdAccounts) {
+        String accountNumber = null;
+        if (onBoardingInfo != null && onBoardingInfo.getAccount() != null) {
+            accountNumber = onBoardingInfo.getAccount().getAccountNumber();
+        } else if (onBoardingInfo != null && onBoardingInfo.getIdentity() != null) {
+            accountNumber = onBoardingInfo.getIdentity().getAccountNumber();
+        }
+        return new OnBoardingItemResult().index(index).accountNumber(accountNumber)
+            .accountCreated(accountNumber != null && createdAccounts.contains(accountNumber));
+    }
+
+    private OnBoardingItemResult onboarding(int index, OnBoardingInfo onBoardingInfo, Set<String> createdAccounts) {
+
+        OnBoardingItemResult result = result(index, onBoardingInfo, createdAccounts);
+
+        IdentityInfo request = onBoardingInfo.getIdentity();
+        if (request == null) {
+            return result.status(result.isAccountCreated() ? OnBoardingItemStatus.CREATED : OnBoardingItemStatus.EXISTS);
+        }
+
+        if (request.getAccountNumber() == null) {
+            request.setAccountNumber(onBoardingInfo.getAccount().getAccountNumber());
+        }
+        if (StringUtils.isEmpty(request.getNote())) {
+            request.setNote(onBoardingInfo.getNote());
+        }
+
+        String step = "identity";
+        try {
+            boolean nav4 = StringUtils.hasText(request.getNav4Id());
+            Optional<UserRepresentation> identity = nav4 ? identityService.findIdentityNav4(request.getNav4Id())
+                : identityService.findIdentity(request.getContactNumber());
+
+            IdentityInfo identityInfo;
+            if (!identity.isPresent()) {
+                identityInfo = identityService.createIdentity(request);
+                result.status(OnBoardingItemStatus.CREATED);
+            } else if (onBoardingInfo.isOverwriteIdentity()) {
+                identityInfo = identityService.updateIdentity(request.getContactNumber(), request, UpdateType.UPDATE);
+                result.status(OnBoardingItemStatus.UPDATED);
+            } else {
+                identityInfo = identityService.mapping(identity.get(), false);
+                result.status(OnBoardingItemStatus.EXISTS);
+            }
+            result.identity(identityInfo);
+
+            if (!CollectionUtils.isEmpty(onBoardingInfo.getRoles()) && (!identity.isPresent() || onBoardingInfo.isOverwriteRoles())) {
+                step = "roles";
+                identityService.updateRolesOfIdentity(identityInfo.getIdentityId(), onBoardingInfo.getRoles(), UpdateType.ADD, null);
+            }
+
+            if (onBoardingInfo.getCredentials() != null && (!identity.isPresent() || onBoardingInfo.isOverwritePassword())) {
+                step = "credentials";
+                if (nav4) {
+                    identityService.createIdentityCredentialsNav4(request.getNav4Id(), onBoardingInfo.getCredentials());
+                } else {
+                    identityService.createIdentityCredentials(request.getContactNumber(), onBoardingInfo.getCredentials());
+                }
+                identityInfo.setState(IdentityState.CREDENTIALS_CREATED);
+            }
+
+        } catch (RuntimeException e) {
+            log.warn("Onboarding item {} failed in step {}: {}", index, step, e.getMessage());
+            result.status(OnBoardingItemStatus.FAILED).message(step + ": " + e.getMessage());
+        }
+        return result;
+    }
+}
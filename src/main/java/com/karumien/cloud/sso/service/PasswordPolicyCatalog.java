@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import com.karumien.cloud.sso.api.model.PasswordPolicy;
+
+import lombok.Getter;
+
+/**
+ * Immutable snapshot of realm Password Policy parsed once with precomputed translations by supported language.
+ * <p>
+ * Parsed {@link PasswordPolicy} is shared and must not be modified, callers get copy by {@link #get(Locale)}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 18:31:16
+ */
+public final class PasswordPolicyCatalog {
+
+    private static final String SEPARATOR = ") and ";
+
+    /** Parsed policy without translation */
+    @Getter
+    private final PasswordPolicy rules;
+
+    /** Translations by language, first language is default */
+    private final Map<String, String> translations;
+
+    private final String defaultTranslation;
+
+    private PasswordPolicyCatalog(PasswordPolicy rules, Map<String, String> translations, String defaultTranslation) {
+        this.rules = rules;
+        this.translations = Collections.unmodifiableMap(translations);
+        this.defaultTranslation = defaultTranslation;
+    }
+
+    /**
+     * Parse KeyCloak policy and translate it to all languages.
+     *
+     * @param value
+     *            KeyCloak Password Policy ie. length(8) and digits(1) and notUsername(undefined)
+     * @param languages
+     *            supported languages (first is default)
+     * @param translator
+     *            translation of parsed policy for locale
+     * @return {@link PasswordPolicyCatalog} new snapshot
+     */
+    public static PasswordPolicyCatalog of(String value, List<Locale> languages, BiFunction<Locale, PasswordPolicy, String> translator) {
+
+        PasswordPolicy rules = parse(value);
+
+        Map<String, String> translations = new HashMap<>();
+        languages.forEach(locale -> translations.put(locale.getLanguage(), translator.apply(locale, rules)));
+
+        return new PasswordPolicyCatalog(rules, translations, languages.isEmpty() ? null : translations.get(languages.get(0).getLanguage()));
+    }
+
+    /**
+     * Parse KeyCloak Password Policy in one pass.
+     *
+     * @param value
+     *            KeyCloak Password Policy ie. length(8) and digits(1) and notUsername(undefined)
+     * @return {@link PasswordPolicy} parsed policy
+     */
+    public static PasswordPolicy parse(String value) {
+
+        Map<String, String> rules = new HashMap<>();
+        int start = 0;
+        while (value != null && start < value.length()) {
+            int open = value.indexOf('(', start);
+            if (open < 0) {
+                break;
+            }
+            // value of rule (ie. regexPattern) could contain brackets
+            int next = value.indexOf(SEPARATOR, open);
+            int close = next < 0 ? value.lastIndexOf(')') : next;
+            if (close < open) {
+                break;
+            }
+            rules.put(value.substring(start, open).trim(), value.substring(open + 1, close));
+            start = next < 0 ? value.length() : next + SEPARATOR.length();
+        }
+
+        PasswordPolicy policy = new PasswordPolicy();
+        policy.setValue(value);
+        policy.setHashAlgorithm(rules.get("hashAlgorithm"));
+        policy.setMinSpecialChars(integer(rules.get("specialChars")));
+        policy.setMinUpperCase(integer(rules.get("upperCase")));
+        policy.setMinLowerCase(integer(rules.get("lowerCase")));
+        policy.setPasswordHistory(integer(rules.get("passwordHistory")));
+        policy.setMinDigits(integer(rules.get("digits")));
+        policy.setHashIterations(integer(rules.get("hashIterations")));
+
+        if (rules.containsKey("passwordBlacklist")) {
+            policy.setPasswordBlacklist(true);
+        }
+
+        if (rules.containsKey("notUsername")) {
+            policy.setNotUseUsername(true);
+        }
+
+        policy.setRegexPattern(rules.get("regexPattern"));
+        policy.setPasswordExpireDays(integer(rules.get("forceExpiredPasswordChange")));
+        policy.setMinLength(integer(rules.get("length")));
+
+        if (policy.getMinLength() == null || policy.getMinLength() == 0) {
+            policy.setMinLength(1);
+        }
+
+        return policy;
+    }
+
+    private static Integer integer(String value) {
+        return value == null ? null : Integer.valueOf(value.trim());
+    }
+
+    /**
+     * Copy of policy with translation.
+     *
+     * @param locale
+     *            locale of user
+     * @return {@link PasswordPolicy} new instance
+     */
+    public PasswordPolicy get(Locale locale) {
+
+        PasswordPolicy policy = new PasswordPolicy();
+        policy.setValue(rules.getValue());
+        policy.setHashAlgorithm(rules.getHashAlgorithm());
+        policy.setMinSpecialChars(rules.getMinSpecialChars());
+        policy.setMinUpperCase(rules.getMinUpperCase());
+        policy.setMinLowerCase(rules.getMinLowerCase());
+        policy.setPasswordHistory(rules.getPasswordHistory());
+        policy.setMinDigits(rules.getMinDigits());
+        policy.setHashIterations(rules.getHashIterations());
+        policy.setPasswordBlacklist(rules.isPasswordBlacklist());
+        policy.setNotUseUsername(rules.isNotUseUsername());
+        policy.setRegexPattern(rules.getRegexPattern());
+        policy.setPasswordExpireDays(rules.getPasswordExpireDays());
+        policy.setMinLength(rules.getMinLength());
+        policy.setTranslation(translations.getOrDefault(locale.getLanguage(), defaultTranslation));
+        return policy;
+    }
+}
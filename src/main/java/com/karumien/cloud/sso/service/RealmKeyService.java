@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.security.PublicKey;
+import java.util.Optional;
+
+/**
+ * Service holds in-memory {@link RealmKeys} of realm (refreshed in background and on unknown key ID).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 19:14:12
+ */
+public interface RealmKeyService {
+
+    /**
+     * Current snapshot of realm keys (loaded on first access).
+     *
+     * @return {@link RealmKeys} immutable snapshot
+     */
+    RealmKeys getKeys();
+
+    /**
+     * Signing key of realm by key ID, unknown key ID (key rotation) reloads keys from KeyCloak.
+     *
+     * @param kid
+     *            key ID from token header
+     * @return {@link Optional} of {@link PublicKey}
+     */
+    Optional<PublicKey> getKey(String kid);
+
+    /**
+     * Reload keys from KeyCloak, other instances of cluster are notified to reload them.
+     */
+    void refresh();
+
+}
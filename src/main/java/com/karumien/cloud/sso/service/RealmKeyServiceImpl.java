@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.io.IOException;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.annotation.PostConstruct;
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.WebApplicationException;
+
+import org.jboss.resteasy.client.jaxrs.ResteasyClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.karumien.cloud.sso.HazelcastConfiguration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of {@link RealmKeyService} - realm keys loaded by public realm endpoints of KeyCloak through pooled
+ * client of token endpoint (connect and socket timeouts bound waiting of first load and reload by unknown key ID).
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 19:20:55
+ */
+@Slf4j
+@Service
+public class RealmKeyServiceImpl implements RealmKeyService {
+
+    @Value("${keycloak.realm}")
+    private String realm;
+
+    @Value("${keycloak.auth-server-url}")
+    private String adminServerUrl;
+
+    /** Minimal interval of reloads caused by unknown key ID (ms) */
+    @Value("${realm.keys.min-refresh:10000}")
+    private long minRefresh;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    private ResteasyClient tokenClient;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    private ITopic<String> keyChanges;
+
+    private volatile RealmKeys keys;
+
+    @PostConstruct
+    public void init() {
+        keyChanges = HazelcastConfiguration.invalidatingTopic(hazelcastInstance, HazelcastConfiguration.TOPIC_KEY_CHANGES,
+            () -> keys = null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RealmKeys getKeys() {
+        RealmKeys current = keys;
+        if (current == null) {
+            synchronized (this) {
+                if (keys == null) {
+                    keys = load();
+                }
+                current = keys;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<PublicKey> getKey(String kid) {
+
+        RealmKeys current = getKeys();
+        Optional<PublicKey> key = current.getKey(kid);
+        if (key.isPresent() || kid == null) {
+            return key;
+        }
+
+        synchronized (this) {
+            // reloaded by another thread meanwhile or reloaded recently (unknown kid is not refresh trigger), dropped by cluster
+            if (keys == null || keys == current && System.currentTimeMillis() - current.getLoaded() >= minRefresh) {
+                log.info("Unknown key {}, reloading realm keys", kid);
+                keys = load();
+            }
+            return keys.getKey(kid);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refresh() {
+        reloadKeys();
+        keyChanges.publish(realm);
+    }
+
+    private void reloadKeys() {
+        RealmKeys loaded = load();
+        synchronized (this) {
+            keys = loaded;
+        }
+    }
+
+    /**
+     * Periodic reload of realm keys (rotation).
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${realm.keys.refresh:600000}")
+    public void reload() {
+        try {
+            reloadKeys();
+        } catch (RuntimeException e) {
+            log.warn("Realm keys reload failed: {}", e.getMessage());
+        }
+    }
+
+    private RealmKeys load() {
+
+        String realmUrl = adminServerUrl + "/realms/" + realm;
+        try {
+            Map<String, Object> realmInfo = mapper.readValue(read(realmUrl), new TypeReference<Map<String, Object>>() { });
+            String jwks = new String(read(realmUrl + "/protocol/openid-connect/certs"), "UTF-8");
+            Map<String, List<Map<String, Object>>> jwksInfo = mapper.readValue(jwks, new TypeReference<Map<String, List<Map<String, Object>>>>() { });
+            return RealmKeys.of((String) realmInfo.get("public_key"), jwks, jwksInfo.getOrDefault("keys", Collections.emptyList()));
+        } catch (IOException | ProcessingException | WebApplicationException e) {
+            throw new IllegalStateException("Can't retreive public key", e);
+        }
+    }
+
+    private byte[] read(String url) {
+        return tokenClient.target(url).request().get(byte[].class);
+    }
+}
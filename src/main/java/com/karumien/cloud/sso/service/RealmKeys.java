@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable snapshot of realm signing keys - public key of realm, raw JWKS document and parsed RSA keys by key ID.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 19:06:40
+ */
+@Slf4j
+public final class RealmKeys {
+
+    /** Base64 encoded public key of realm (/realms/{realm}) */
+    @Getter
+    private final String publicKey;
+
+    /** JWKS document of realm (/realms/{realm}/protocol/openid-connect/certs) */
+    @Getter
+    private final String jwks;
+
+    /** RSA signing keys by kid */
+    private final Map<String, PublicKey> keys;
+
+    @Getter
+    private final long loaded = System.currentTimeMillis();
+
+    private RealmKeys(String publicKey, String jwks, Map<String, PublicKey> keys) {
+        this.publicKey = publicKey;
+        this.jwks = jwks;
+        this.keys = Collections.unmodifiableMap(keys);
+    }
+
+    /**
+     * Build snapshot from realm info and JWKS document.
+     *
+     * @param publicKey
+     *            Base64 encoded public key of realm
+     * @param jwks
+     *            raw JWKS document
+     * @param jwksKeys
+     *            parsed {@code keys} of JWKS document
+     * @return {@link RealmKeys} new snapshot
+     */
+    public static RealmKeys of(String publicKey, String jwks, List<Map<String, Object>> jwksKeys) {
+
+        Map<String, PublicKey> keys = new HashMap<>();
+        for (Map<String, Object> jwk : jwksKeys) {
+            if (!"RSA".equals(jwk.get("kty")) || (jwk.get("use") != null && !"sig".equals(jwk.get("use")))) {
+                continue;
+            }
+            try {
+                keys.put((String) jwk.get("kid"), KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                    new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("n"))),
+                    new BigInteger(1, Base64.getUrlDecoder().decode((String) jwk.get("e"))))));
+            } catch (NoSuchAlgorithmException | InvalidKeySpecException | IllegalArgumentException e) {
+                log.warn("Invalid JWK {}: {}", jwk.get("kid"), e.getMessage());
+            }
+        }
+
+        return new RealmKeys(publicKey, jwks, keys);
+    }
+
+    /**
+     * Signing key of realm.
+     *
+     * @param kid
+     *            key ID from token header
+     * @return {@link Optional} of {@link PublicKey}
+     */
+    public Optional<PublicKey> getKey(String kid) {
+        return Optional.ofNullable(kid == null ? null : keys.get(kid));
+    }
+
+    /**
+     * IDs of current signing keys of realm.
+     *
+     * @return {@link Set} of kid
+     */
+    public Set<String> getKeyIds() {
+        return keys.keySet();
+    }
+}
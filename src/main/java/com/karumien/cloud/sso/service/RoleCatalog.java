@@ -0,0 +1,313 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.keycloak.representations.idm.RoleRepresentation;
+
+import com.karumien.cloud.sso.api.entity.RoleEntity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable versioned snapshot of realm roles loaded from KeyCloak DB, swapped as a whole by {@link RoleCatalogService}.
+ * <p>
+ * Holds roles with descriptions and attributes, direct composites and composite role graph with precomputed
+ * transitive closures, so effective roles of User are union of closures of its direct mappings (same as KeyCloak
+ * {@code listEffective}). Returned {@link RoleRepresentation}s are shared by all readers and must not be modified.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 15:52:30
+ */
+@Slf4j
+public final class RoleCatalog {
+
+    private static final String ROLE_PREFIX = "ROLE";
+
+    @Getter
+    private final long version;
+
+    /** Realm roles by name (ordered by name) */
+    private final Map<String, RoleRepresentation> roles;
+
+    /** Realm role names by Role ID */
+    private final Map<String, String> names;
+
+    /** Direct composites (realm and client roles) by Role ID of realm or client role */
+    private final Map<String, Set<RoleRepresentation>> composites;
+
+    /** Transitive closures of realm roles by Role ID over whole composite graph (role itself included, realm roles only) */
+    private final Map<String, Set<String>> closures;
+
+    /** Parsed binary masks by Role ID */
+    private final Map<String, RoleMask> masks;
+
+    /** Translation keys by role name ie. role.role_tlm00_r */
+    private final Map<String, String> translationKeys;
+
+    /** Texts of i18n bundles with translation attributes of roles */
+    private final TranslationCatalog translations;
+
+    private RoleCatalog(long version, Map<String, RoleRepresentation> roles, Map<String, Set<RoleRepresentation>> composites,
+            Map<String, Set<String>> closures, Map<String, RoleMask> masks, TranslationCatalog messages) {
+        this.version = version;
+        this.roles = Collections.unmodifiableMap(roles);
+        this.composites = Collections.unmodifiableMap(composites);
+        this.closures = Collections.unmodifiableMap(closures);
+        this.masks = Collections.unmodifiableMap(masks);
+
+        Map<String, String> names = new HashMap<>();
+        Map<String, String> translationKeys = new HashMap<>();
+        Map<String, Map<String, List<String>>> attributesByKey = new HashMap<>();
+        roles.values().forEach(role -> {
+            names.put(role.getId(), role.getName());
+            String key = ("role." + role.getName().toLowerCase()).intern();
+            translationKeys.put(role.getName(), key);
+            attributesByKey.put(key, role.getAttributes());
+        });
+        this.names = Collections.unmodifiableMap(names);
+        this.translationKeys = Collections.unmodifiableMap(translationKeys);
+        this.translations = messages.with(attributesByKey);
+    }
+
+    /**
+     * Build catalog from raw rows of KeyCloak DB.
+     *
+     * @param version
+     *            version of snapshot
+     * @param roleEntities
+     *            realm roles
+     * @param compositeRows
+     *            rows [composite Role ID, child Role ID, child Role name, child is client role] of realm and client roles
+     * @param attributeRows
+     *            rows [Role ID, attribute name, value] ie. [.., binaryMask, 10000000_R]
+     * @return {@link RoleCatalog} new snapshot
+     */
+    public static RoleCatalog of(long version, List<RoleEntity> roleEntities, List<Object[]> compositeRows, List<Object[]> attributeRows) {
+        return of(version, roleEntities, compositeRows, attributeRows, TranslationCatalog.empty());
+    }
+
+    /**
+     * Build catalog from raw rows of KeyCloak DB with precompiled translations of roles.
+     *
+     * @param version
+     *            version of snapshot
+     * @param roleEntities
+     *            realm roles
+     * @param compositeRows
+     *            rows [composite Role ID, child Role ID, child Role name, child is client role] of realm and client roles
+     * @param attributeRows
+     *            rows [Role ID, attribute name, value] ie. [.., binaryMask, 10000000_R]
+     * @param messages
+     *            texts of i18n bundles
+     * @return {@link RoleCatalog} new snapshot
+     */
+    public static RoleCatalog of(long version, List<RoleEntity> roleEntities, List<Object[]> compositeRows, List<Object[]> attributeRows,
+            TranslationCatalog messages) {
+
+        Map<String, Map<String, List<String>>> attributes = new HashMap<>();
+        for (Object[] row : attributeRows) {
+            attributes.computeIfAbsent((String) row[0], k -> new HashMap<>())
+                .computeIfAbsent((String) row[1], k -> new ArrayList<>()).add((String) row[2]);
+        }
+
+        Map<String, Set<String>> children = new HashMap<>();
+        Map<String, Set<RoleRepresentation>> composites = new HashMap<>();
+        for (Object[] row : compositeRows) {
+            children.computeIfAbsent((String) row[0], k -> new HashSet<>()).add((String) row[1]);
+            RoleRepresentation child = new RoleRepresentation();
+            child.setId((String) row[1]);
+            child.setName((String) row[2]);
+            child.setClientRole(Boolean.TRUE.equals(row[3]));
+            composites.computeIfAbsent((String) row[0], k -> new LinkedHashSet<>()).add(child);
+        }
+        composites.replaceAll((roleId, set) -> Collections.unmodifiableSet(set));
+
+        Map<String, RoleRepresentation> roles = new LinkedHashMap<>();
+        Map<String, RoleMask> masks = new HashMap<>();
+        for (RoleEntity entity : roleEntities) {
+            RoleRepresentation role = new RoleRepresentation();
+            role.setId(entity.getId());
+            role.setName(entity.getName());
+            role.setDescription(entity.getDescription());
+            role.setClientRole(false);
+            role.setComposite(children.containsKey(entity.getId()));
+            role.setAttributes(attributes.getOrDefault(entity.getId(), new HashMap<>()));
+            roles.put(role.getName(), role);
+            mask(role).ifPresent(mask -> masks.put(role.getId(), mask));
+        }
+
+        Set<String> realmRoleIds = new HashSet<>();
+        roles.values().forEach(role -> realmRoleIds.add(role.getId()));
+
+        Map<String, Set<String>> closures = new HashMap<>();
+        realmRoleIds.forEach(roleId -> closures.put(roleId, Collections.unmodifiableSet(closure(roleId, children, realmRoleIds))));
+
+        return new RoleCatalog(version, roles, composites, closures, masks, messages);
+    }
+
+    private static Set<String> closure(String roleId, Map<String, Set<String>> children, Set<String> realmRoleIds) {
+
+        Set<String> closure = new LinkedHashSet<>();
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push(roleId);
+
+        while (!stack.isEmpty()) {
+            String current = stack.pop();
+            // visited check also breaks (invalid) cycles
+            if (closure.add(current)) {
+                children.getOrDefault(current, Collections.emptySet()).forEach(stack::push);
+            }
+        }
+
+        // walked through client roles too, realm level only in result
+        closure.retainAll(realmRoleIds);
+        return closure;
+    }
+
+    private static Optional<RoleMask> mask(RoleRepresentation role) {
+
+        List<String> values = role.getAttributes().get(RoleService.ATTR_BINARY_MASK);
+        String mask = values == null || values.isEmpty() ? null : values.get(0);
+        String[] splitName = role.getName().split("_");
+
+        // TODO: use attribute module - no split?
+        if (splitName.length < 2 || !ROLE_PREFIX.equals(splitName[0]) || mask == null || mask.length() < 3) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(new RoleMask(splitName[1], Integer.parseInt(mask.substring(0, mask.length() - 2), 2)));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid binary mask {} of role {}", mask, role.getName());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * All realm roles ordered by name.
+     *
+     * @return {@link Collection} of {@link RoleRepresentation}
+     */
+    public Collection<RoleRepresentation> getRoles() {
+        return roles.values();
+    }
+
+    /**
+     * Realm role by name.
+     *
+     * @param roleName
+     *            name of role
+     * @return {@link Optional} of {@link RoleRepresentation}
+     */
+    public Optional<RoleRepresentation> getRole(String roleName) {
+        return Optional.ofNullable(roles.get(roleName));
+    }
+
+    /**
+     * Direct composites of realm role (realm and client roles).
+     *
+     * @param roleId
+     *            ID of role
+     * @return {@link Set} of {@link RoleRepresentation}
+     */
+    public Set<RoleRepresentation> getComposites(String roleId) {
+        return composites.getOrDefault(roleId, Collections.emptySet());
+    }
+
+    /**
+     * Effective roles for direct role mappings.
+     *
+     * @param directRoleIds
+     *            IDs of directly mapped roles
+     * @return {@link Set} of effective Role IDs
+     */
+    public Set<String> effectiveRoleIds(Collection<String> directRoleIds) {
+        Set<String> effective = new HashSet<>();
+        for (String roleId : directRoleIds) {
+            effective.addAll(closures.getOrDefault(roleId, Collections.emptySet()));
+        }
+        return effective;
+    }
+
+    /**
+     * Name of realm role.
+     *
+     * @param roleId
+     *            ID of role
+     * @return name of role or {@code null} when role is not known
+     */
+    public String getName(String roleId) {
+        return names.get(roleId);
+    }
+
+    /**
+     * Binary rights of modules for set of (effective) roles.
+     *
+     * @param roleIds
+     *            IDs of roles
+     * @return {@link Map} of OR-ed masks by module
+     */
+    public Map<String, Integer> binaryRights(Collection<String> roleIds) {
+        Map<String, Integer> rights = new HashMap<>();
+        for (String roleId : roleIds) {
+            RoleMask mask = masks.get(roleId);
+            if (mask != null) {
+                rights.merge(mask.getModule(), mask.getMask(), (a, b) -> a | b);
+            }
+        }
+        return rights;
+    }
+
+    /**
+     * Precompiled translation of realm role (attribute translation[lang], attribute translation, i18n role.name).
+     *
+     * @param roleName
+     *            name of role
+     * @param locale
+     *            locale of user
+     * @param defaultTranslate
+     *            default translated value if not found
+     * @return {@link String} translated text
+     */
+    public String translate(String roleName, Locale locale, String defaultTranslate) {
+        String translate = translations.get(translationKeys.get(roleName), locale);
+        return translate == null ? defaultTranslate : translate;
+    }
+
+    public int size() {
+        return roles.size();
+    }
+
+    /**
+     * Parsed binary mask of one right.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class RoleMask {
+
+        private final String module;
+
+        private final int mask;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service holds in-memory {@link RoleCatalog} of realm roles.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 15:58:04
+ */
+public interface RoleCatalogService {
+
+    /**
+     * Current snapshot of roles (loaded on first access).
+     *
+     * @return {@link RoleCatalog} immutable snapshot
+     */
+    RoleCatalog getCatalog();
+
+    /**
+     * Effective realm roles of User resolved by catalog from direct role mappings (one query).
+     *
+     * @param userId
+     *            User's ID
+     * @return {@link Set} of effective Role IDs
+     */
+    Set<String> getEffectiveRoleIds(String userId);
+
+    /**
+     * Effective realm roles of Users resolved by catalog from direct role mappings (one query per chunk).
+     *
+     * @param userIds
+     *            User's IDs
+     * @return {@link Map} of effective Role IDs by User's ID (empty set for Users without roles)
+     */
+    Map<String, Set<String>> getEffectiveRoleIds(Collection<String> userIds);
+
+    /**
+     * Realm roles of group (one query).
+     *
+     * @param groupId
+     *            Group ID
+     * @param effective
+     *            effective roles (composites and parent groups) or direct mappings only
+     * @return {@link Set} of Role IDs
+     */
+    Set<String> getGroupRoleIds(String groupId, boolean effective);
+
+    /**
+     * Reload catalog after change of roles (whole cluster).
+     */
+    void refresh();
+
+}
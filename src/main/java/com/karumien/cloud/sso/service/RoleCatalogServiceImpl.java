@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.karumien.cloud.sso.HazelcastConfiguration;
+import com.karumien.cloud.sso.api.repository.RoleAttributeRepository;
+import com.karumien.cloud.sso.api.repository.RoleEntityRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Implementation of {@link RoleCatalogService}.
+ * <p>
+ * Readers always get current immutable snapshot without locking, loads are single-flight (one running load
+ * of catalog per instance, shared by all callers which need it).
+ * <p>
+ * Catalog is rebuilt by three queries (roles, composites, attributes) at startup, after own changes of roles
+ * (propagated to the cluster) and periodically to catch changes made directly in KeyCloak. Direct role mappings
+ * of Users are always read from DB, so (un)assigned roles are effective immediately.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 16:01:44
+ */
+@Service
+@Slf4j
+public class RoleCatalogServiceImpl implements RoleCatalogService {
+
+    @Value("${keycloak.realm}")
+    private String realm;
+
+    @Autowired
+    private RoleAttributeRepository roleAttributeRepository;
+
+    @Autowired
+    private RoleEntityRepository roleEntityRepository;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private HazelcastInstance hazelcastInstance;
+
+    @Autowired
+    private LocalizationService localizationService;
+
+    private ITopic<String> roleChanges;
+
+    private final AtomicReference<RoleCatalog> catalog = new AtomicReference<>();
+
+    /** Running load shared by concurrent callers */
+    private final AtomicReference<CompletableFuture<RoleCatalog>> loading = new AtomicReference<>();
+
+    private final AtomicLong versions = new AtomicLong();
+
+    /** Roles changed on other node, catalog is rebuilt by next request */
+    private final AtomicBoolean invalidated = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        roleChanges = HazelcastConfiguration.invalidatingTopic(hazelcastInstance, HazelcastConfiguration.TOPIC_ROLE_CHANGES,
+            () -> invalidated.set(true));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public RoleCatalog getCatalog() {
+        if (invalidated.compareAndSet(true, false)) {
+            // changed on other node, rebuilt by first caller (also when load started before change is running)
+            return load(true);
+        }
+        RoleCatalog current = catalog.get();
+        return current != null ? current : load(false);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getEffectiveRoleIds(String userId) {
+        return getEffectiveRoleIds(Arrays.asList(userId)).get(userId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, Set<String>> getEffectiveRoleIds(Collection<String> userIds) {
+
+        RoleCatalog current = getCatalog();
+        Map<String, Set<String>> mappings = searchService.findRoleMappingsByUserIds(userIds);
+
+        Map<String, Set<String>> effective = new HashMap<>();
+        userIds.forEach(userId -> effective.put(userId, current.effectiveRoleIds(mappings.getOrDefault(userId, Collections.emptySet()))));
+        return effective;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<String> getGroupRoleIds(String groupId, boolean effective) {
+        return effective 
+            ? getCatalog().effectiveRoleIds(roleEntityRepository.findInheritedRoleIdsByGroupId(groupId))
+            : new HashSet<>(roleEntityRepository.findRoleIdsByGroupId(groupId));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void refresh() {
+        load(true);
+        roleChanges.publish(realm);
+    }
+
+    /**
+     * Periodic background rebuild of catalog.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${role.catalog.refresh:300000}")
+    public void reload() {
+        try {
+            load(false);
+        } catch (RuntimeException e) {
+            // logged by load, next attempt by schedule
+        }
+    }
+
+    /**
+     * Single-flight load of catalog, concurrent callers share one running load.
+     *
+     * @param fresh
+     *            wait for running load and start new one (changes made before call must be visible)
+     * @return {@link RoleCatalog} loaded (or previous when load failed)
+     */
+    private RoleCatalog load(boolean fresh) {
+
+        while (true) {
+            CompletableFuture<RoleCatalog> running = loading.get();
+            if (running != null) {
+                RoleCatalog loaded = join(running);
+                if (!fresh) {
+                    return loaded;
+                }
+                // started before change, wait for it and start (or join) next one
+                fresh = false;
+                continue;
+            }
+
+            CompletableFuture<RoleCatalog> flight = new CompletableFuture<>();
+            if (!loading.compareAndSet(null, flight)) {
+                continue;
+            }
+
+            try {
+                RoleCatalog loaded = build();
+                catalog.set(loaded);
+                flight.complete(loaded);
+                return loaded;
+            } catch (RuntimeException e) {
+                RoleCatalog current = catalog.get();
+                if (current == null) {
+                    flight.completeExceptionally(e);
+                    throw e;
+                }
+                flight.complete(current);
+                return current;
+            } finally {
+                loading.set(null);
+            }
+        }
+    }
+
+    private RoleCatalog build() {
+
+        long start = System.currentTimeMillis();
+        try {
+            RoleCatalog loaded = RoleCatalog.of(versions.incrementAndGet(), roleEntityRepository.findRealmRoles(realm),
+                roleEntityRepository.findComposites(realm), roleAttributeRepository.findRealmRoleAttributes(realm),
+                localizationService.getMessages());
+            log.info("Role catalog version {} loaded: {} roles in {} ms", loaded.getVersion(), loaded.size(),
+                System.currentTimeMillis() - start);
+            return loaded;
+        } catch (RuntimeException e) {
+            log.error("Role catalog load failed", e);
+            throw e;
+        }
+    }
+
+    private RoleCatalog join(CompletableFuture<RoleCatalog> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+    }
+}
@@ -13,10 +13,11 @@
  */
 package com.karumien.cloud.sso.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import org.keycloak.admin.client.resource.GroupResource;
 import org.keycloak.admin.client.resource.RoleResource;
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
@@ -99,17 +100,18 @@ public interface RoleService {
     String getRolesBinary(UserRepresentation userRepresentation);
 
     /**
-     * Returns all roles that account have assigned.
+     * Returns all roles that account have assigned (resolved in one query).
      * 
-     * @param groupResource
-     *            account for what we want to find roles
+     * @param groupId
+     *            ID of group for what we want to find roles
      * @param effective
      *            roles effective counted or original selected
      * 
      * @return {@link List} of {@link RoleInfo} all roles that account have assigned
      */
-    List<RoleInfo> getAccountRoles(GroupResource groupResource, boolean effective);
-    List<RoleRepresentation> getAccountRolesRepresentation(GroupResource group, boolean effective);
+    List<RoleInfo> getAccountRoles(String groupId, boolean effective);
+
+    List<RoleRepresentation> getAccountRolesRepresentation(String groupId, boolean effective);
 
     /**
      * Returns all rights that identity have assigned.
@@ -118,12 +120,21 @@ public interface RoleService {
      * 
      * @return {@link List} of {@link RoleInfo} all rights that identity have assigned
      */
-    List<String> getIdentityRights(GroupResource groupResource, String contactNumber);
+    List<String> getIdentityRights(String groupId, String contactNumber);
 
     List<String> getIdentityRolesNav4(String nav4Id);
 
     List<String> getIdentityRoles(UserRepresentation userRepresentation);
 
+    /**
+     * Returns effective roles of more identities at once (one query per chunk).
+     * 
+     * @param identityIds
+     *            User's IDs
+     * @return {@link Map} of role names by User's ID
+     */
+    Map<String, List<String>> getIdentitiesRoles(Collection<String> identityIds);
+
     List<RoleInfo> getRoles();
 
     List<String> getIdentityRights(String contactNumber);
@@ -13,6 +13,7 @@
  */
 package com.karumien.cloud.sso.service;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -25,7 +26,6 @@ import java.util.stream.Collectors;
 import javax.ws.rs.NotFoundException;
 
 import org.keycloak.admin.client.Keycloak;
-import org.keycloak.admin.client.resource.GroupResource;
 import org.keycloak.admin.client.resource.RoleResource;
 import org.keycloak.representations.idm.RoleRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
@@ -71,6 +71,9 @@ public class RoleServiceImpl implements RoleService {
     @Autowired
     private LocalizationService localizationService;
 
+    @Autowired
+    private RoleCatalogService roleCatalogService;
+
     /**
      * {@inheritDoc}
      */
@@ -88,6 +91,7 @@ public class RoleServiceImpl implements RoleService {
         // return getClientsRoleBaseOnId(role.getRoleId(), role.getClientId());
         // } else {
         keycloak.realm(realm).roles().create(roleRepresentation);
+        roleCatalogService.refresh();
         return getRoleBaseOnId(role.getRoleId());
         // }
     }
@@ -102,6 +106,7 @@ public class RoleServiceImpl implements RoleService {
         } catch (NotFoundException e) {
             throw new RoleNotFoundException(roleId);
         }
+        roleCatalogService.refresh();
     }
 
     /**
@@ -109,8 +114,9 @@ public class RoleServiceImpl implements RoleService {
      */
     @Override
     public RoleInfo getRoleBaseOnId(String roleId) {
-        RoleResource role = findRoleResource(roleId).orElseThrow(() -> new RoleNotFoundException(roleId));
-        return transformRoleToBaseRole(role.toRepresentation(), role.getRoleComposites()); //RealmRoleComposites());
+        RoleCatalog catalog = roleCatalogService.getCatalog();
+        RoleRepresentation role = catalog.getRole(roleId).orElseThrow(() -> new RoleNotFoundException(roleId));
+        return transformRoleToBaseRole(role, catalog.getComposites(role.getId()));
     }
 
     /**
@@ -130,19 +136,31 @@ public class RoleServiceImpl implements RoleService {
      */
     @Override
     public List<String> getIdentityRoles(UserRepresentation userRepresentation) {
-        return keycloak.realm(realm).users().get(userRepresentation.getId()).roles().realmLevel().listEffective().stream()
-            .filter(r -> isRole(r.getName()))
-            .map(r -> r.getName())
-            .collect(Collectors.toList());
+        return getEffectiveRoles(roleCatalogService.getEffectiveRoleIds(userRepresentation.getId()), true);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<String, List<String>> getIdentitiesRoles(Collection<String> identityIds) {
+        Map<String, List<String>> roles = new HashMap<>();
+        roleCatalogService.getEffectiveRoleIds(identityIds).forEach((userId, roleIds) -> roles.put(userId, getEffectiveRoles(roleIds, true)));
+        return roles;
     }
 
     protected List<String> getIdentityRights(UserRepresentation userRepresentation) {
-        return keycloak.realm(realm).users().get(userRepresentation.getId()).roles().realmLevel().listEffective().stream()
-            .filter(r -> !isRole(r.getName()))
-            .map(r -> r.getName())
-            .collect(Collectors.toList());
+        return getEffectiveRoles(roleCatalogService.getEffectiveRoleIds(userRepresentation.getId()), false);
     }    
 
+    private List<String> getEffectiveRoles(Set<String> roleIds, boolean roles) {
+        RoleCatalog catalog = roleCatalogService.getCatalog();
+        return roleIds.stream()
+            .map(catalog::getName)
+            .filter(name -> name != null && isRole(name) == roles)
+            .collect(Collectors.toList());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -188,9 +206,11 @@ public class RoleServiceImpl implements RoleService {
         }
         
         // role.setId(userClientRole.getId());
-        roleInfo.setTranslation(
-                localizationService.translate("role" + "." + role.getName().toLowerCase(), role.getAttributes(), 
-                        LocaleContextHolder.getLocale(), roleInfo.getDescription()));
+        RoleCatalog catalog = roleCatalogService.getCatalog();
+        roleInfo.setTranslation(!Boolean.TRUE.equals(role.getClientRole()) && catalog.getRole(role.getName()).isPresent()
+            ? catalog.translate(role.getName(), LocaleContextHolder.getLocale(), roleInfo.getDescription())
+            : localizationService.translate("role" + "." + role.getName().toLowerCase(), role.getAttributes(), 
+                LocaleContextHolder.getLocale(), roleInfo.getDescription()));
         return roleInfo;
     }
 
@@ -207,23 +227,11 @@ public class RoleServiceImpl implements RoleService {
             return binaryRule.toString();
         }
 
-        Map<String, Integer> maskMap = new HashMap<String, Integer>();
-        
-        keycloak.realm(realm).users().get(userRepresentation.getId()).roles().realmLevel().listEffective().stream()
-                .filter(r -> !isRole(r.getName()))
-                .forEach(role -> {
-            Optional<String> stringMask = searchService.findBinaryMaskForRole(role.getId());            
-            if (stringMask.isPresent()) {
-                Integer binaryMask = Integer.valueOf(stringMask.get().substring(0, stringMask.get().length() - 2), 2);
-    
-                // TODO: use attribute module - no split?
-                String[] splitName = role.getName().split("_");
-                if (splitName[0].equals("ROLE")) {
-                    Integer rigtValue = maskMap.get(splitName[1]) != null ? maskMap.get(splitName[1]) + binaryMask : binaryMask;
-                    maskMap.put(splitName[1], rigtValue);
-                }
-            }
-        });
+        // masks of rights are precomputed in catalog, only OR of effective rights
+        RoleCatalog catalog = roleCatalogService.getCatalog();
+        Map<String, Integer> maskMap = catalog.binaryRights(roleCatalogService.getEffectiveRoleIds(userRepresentation.getId()).stream()
+            .filter(roleId -> catalog.getName(roleId) != null && !isRole(catalog.getName(roleId)))
+            .collect(Collectors.toList()));
 
         List<String> modules = moduleService.getAccountModulesSimple(accountNumber.get());
 
@@ -251,10 +259,11 @@ public class RoleServiceImpl implements RoleService {
      * {@inheritDoc}
      */
     @Override
-    public List<RoleInfo> getAccountRoles(GroupResource groupResource, boolean effective) {
-        List<RoleRepresentation> roles = getAccountRolesRepresentation(groupResource, effective);
-        return roles.stream()
-            .map(role -> getRoleBaseOnId(role.getName()))
+    public List<RoleInfo> getAccountRoles(String groupId, boolean effective) {
+        // role mappings by one query, roles and composites from catalog
+        RoleCatalog catalog = roleCatalogService.getCatalog();
+        return getAccountRolesRepresentation(catalog, groupId, effective).stream()
+            .map(role -> transformRoleToBaseRole(role, catalog.getComposites(role.getId())))
             .collect(Collectors.toList());
     }
     
@@ -263,7 +272,7 @@ public class RoleServiceImpl implements RoleService {
      */
     @Override
     public List<RoleInfo> getRoles() {
-        return keycloak.realm(realm).roles().list().stream()
+        return roleCatalogService.getCatalog().getRoles().stream()
             .filter(role -> !role.getName().startsWith(ModuleService.MODULE_PREFIX))
             .filter(r -> isRole(r.getName()))
             .map(role -> transformRoleToBaseRole(role, null))
@@ -275,7 +284,7 @@ public class RoleServiceImpl implements RoleService {
      */
     @Override
     public List<RoleInfo> getRights() {
-        return keycloak.realm(realm).roles().list().stream()
+        return roleCatalogService.getCatalog().getRoles().stream()
             .filter(role -> !role.getName().startsWith(ModuleService.MODULE_PREFIX))
             .filter(r -> !isRole(r.getName()))
             .map(role -> transformRoleToBaseRole(role, null))
@@ -286,20 +295,27 @@ public class RoleServiceImpl implements RoleService {
      * {@inheritDoc}
      */
     @Override
-    public List<RoleRepresentation> getAccountRolesRepresentation(GroupResource groupResource, boolean effective) {
-        return effective ? groupResource.roles().realmLevel().listEffective() : groupResource.roles().realmLevel().listAll();
+    public List<RoleRepresentation> getAccountRolesRepresentation(String groupId, boolean effective) {
+        return getAccountRolesRepresentation(roleCatalogService.getCatalog(), groupId, effective);
+    }
+
+    private List<RoleRepresentation> getAccountRolesRepresentation(RoleCatalog catalog, String groupId, boolean effective) {
+        Set<String> roleIds = roleCatalogService.getGroupRoleIds(groupId, effective);
+        return catalog.getRoles().stream()
+            .filter(role -> roleIds.contains(role.getId()))
+            .collect(Collectors.toList());
     }
     
     /**
      * {@inheritDoc}
      */
     @Override
-    public List<String> getIdentityRights(GroupResource groupResource, String contactNumber) {
+    public List<String> getIdentityRights(String groupId, String contactNumber) {
        
         // TODO: how to solve rights from more clients? -> user rights? or clientId?
         List<String> roleIds = getIdentityRoles(contactNumber);
         Set<String> rights = new HashSet<>();
-        getAccountRoles(groupResource, false).stream()
+        getAccountRoles(groupId, false).stream()
             .filter(role -> roleIds.contains(role.getRoleId()))
             .filter(role -> !CollectionUtils.isEmpty(role.getRights()))
             .forEach(role -> rights.addAll(role.getRights()));
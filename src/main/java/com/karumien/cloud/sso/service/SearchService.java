@@ -6,14 +6,22 @@
  */
 package com.karumien.cloud.sso.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import org.springframework.util.CollectionUtils;
 
+import com.karumien.cloud.sso.api.entity.IdentityProjection;
+import com.karumien.cloud.sso.api.entity.PinIdentityProjection;
+import com.karumien.cloud.sso.api.entity.UserEntity;
 import com.karumien.cloud.sso.api.model.AccountPropertyType;
 import com.karumien.cloud.sso.api.model.IdentityPropertyType;
+import com.karumien.cloud.sso.util.KeysetPage;
+import com.karumien.cloud.sso.util.KeysetRequest;
 
 /**
  * Search Service for direct immutable access to KeyCloak DB for performance searching.
@@ -23,6 +31,9 @@ import com.karumien.cloud.sso.api.model.IdentityPropertyType;
  */
 public interface SearchService {
 
+    /** Sort property of keyset pagination mapped to USER_ENTITY.CREATED_TIMESTAMP */
+    String SORT_CREATED = "created";
+
     /**
      * Search Users by UserAttribute name and value.
      * 
@@ -34,6 +45,57 @@ public interface SearchService {
      */
     List<String> findUserIdsByAttribute(IdentityPropertyType attribute, String value);
 
+    /**
+     * Users by attribute are resolved from memory without DB query.
+     *
+     * @param attribute
+     *            attribute name ie. contactNumber
+     * @return {@code true} when {@link #findUserIdsByAttribute(IdentityPropertyType, String)} is served by index
+     */
+    boolean isIndexed(IdentityPropertyType attribute);
+
+    /**
+     * Search Users by all keys of filter in one query (see {@link IdentitySearchPlanner}).
+     * 
+     * @param searchFilter
+     *            keys and values of search (all must match)
+     * @return {@link List} of User's IDs ordered by username
+     */
+    List<String> findUserIds(Map<IdentityPropertyType, String> searchFilter);
+
+    /**
+     * Search User's IDs by all keys of filter, one keyset (cursor) page.
+     * 
+     * @param searchFilter
+     *            keys and values of search (all must match)
+     * @param page
+     *            keyset page request (sort by username, lastName or created)
+     * @return {@link KeysetPage} of User's IDs
+     */
+    KeysetPage<String> findUserIds(Map<IdentityPropertyType, String> searchFilter, KeysetRequest page);
+
+    /**
+     * Stream Identities by UserAttribute name and value (unordered) through DB cursor, 
+     * rows are not held in memory.
+     * 
+     * @param attribute
+     *            attribute name ie. accountNumber
+     * @param value
+     *            specific value of attribute
+     * @param consumer
+     *            consumer of each {@link IdentityProjection}
+     */
+    void streamIdentityProjections(IdentityPropertyType attribute, String value, Consumer<IdentityProjection> consumer);
+
+    /**
+     * Identity with driver's PIN and stored binary rights by username (one query, no KeyCloak call).
+     * 
+     * @param username
+     *            username of Identity
+     * @return {@link Optional} of {@link PinIdentityProjection}
+     */
+    Optional<PinIdentityProjection> findPinIdentity(String username);
+
     /**
      * Search Groups by UserAttribute name and value.
      * 
@@ -61,6 +123,15 @@ public interface SearchService {
 
     boolean hasCredentials(String identityId);
 
+    /**
+     * Search which of specified Users have password credentials (one query per chunk).
+     * 
+     * @param identityIds
+     *            User's IDs
+     * @return {@link Set} of User's IDs with credentials
+     */
+    Set<String> findUserIdsWithCredentials(Collection<String> identityIds);
+
     /**
      * Search root group by name
      * 
@@ -71,5 +142,52 @@ public interface SearchService {
 
     Optional<String> findBinaryMaskForRole(String roleId);
 
+    /**
+     * Search direct realm role mappings of Users (own and inherited from groups), one query per chunk.
+     * 
+     * @param userIds
+     *            User's IDs
+     * @return {@link Map} of directly mapped Role IDs by User's ID
+     */
+    Map<String, Set<String>> findRoleMappingsByUserIds(Collection<String> userIds);
+
     List<String> getValueByAttributeOfUserId(IdentityPropertyType attribute, String userId);
+
+    /**
+     * Search Identities by attribute name and value, each one loaded by one joined query.
+     * 
+     * @param attribute
+     *            attribute name ie. contactNumber
+     * @param value
+     *            specific value of attribute
+     * @return {@link List} of {@link IdentityProjection}
+     */
+    List<IdentityProjection> findIdentityProjections(IdentityPropertyType attribute, String value);
+
+    /**
+     * Search Users by IDs in chunks.
+     * 
+     * @param userIds
+     *            User's IDs
+     * @return {@link List} of found {@link UserEntity}
+     */
+    List<UserEntity> findUsersByIds(Collection<String> userIds);
+
+    /**
+     * Search all attributes of specified Users in chunks.
+     * 
+     * @param userIds
+     *            User's IDs
+     * @return {@link Map} of attributes by User's ID
+     */
+    Map<String, Map<String, List<String>>> findUserAttributesByIds(Collection<String> userIds);
+
+    /**
+     * Notification about changed (created, updated or deleted) Identity.
+     * 
+     * @param identityId
+     *            User's ID
+     */
+    default void refreshIdentity(String identityId) {
+    }
 }
@@ -8,26 +8,53 @@ package com.karumien.cloud.sso.service;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import com.karumien.cloud.sso.api.entity.AccountEntity;
+import com.karumien.cloud.sso.api.entity.IdentityProjection;
+import com.karumien.cloud.sso.api.entity.PinIdentityProjection;
 import com.karumien.cloud.sso.api.entity.UserEntity;
 import com.karumien.cloud.sso.api.model.AccountPropertyType;
 import com.karumien.cloud.sso.api.model.IdentityPropertyType;
 import com.karumien.cloud.sso.api.repository.AccountEntityRepository;
 import com.karumien.cloud.sso.api.repository.CredentialRepository;
 import com.karumien.cloud.sso.api.repository.GroupEntityRepository;
+import com.karumien.cloud.sso.api.repository.IdentityProjectionRepository;
 import com.karumien.cloud.sso.api.repository.RoleAttributeRepository;
+import com.karumien.cloud.sso.api.repository.RoleEntityRepository;
 import com.karumien.cloud.sso.api.repository.UserAttributeRepository;
 import com.karumien.cloud.sso.api.repository.UserEntityRepository;
 import com.karumien.cloud.sso.exceptions.AccountNotFoundException;
+import com.karumien.cloud.sso.exceptions.InvalidCursorException;
+import com.karumien.cloud.sso.util.KeysetPage;
+import com.karumien.cloud.sso.util.KeysetRequest;
 
 /**
  * Implementation of {@link SearchService}.
@@ -38,6 +65,9 @@ import com.karumien.cloud.sso.exceptions.AccountNotFoundException;
 @Service
 public class SearchServiceImpl implements SearchService {
 
+    /** Keyset sort properties of NOT NULL columns */
+    private static final Set<String> NOT_NULL_SORT = Collections.singleton("username");
+
     @Autowired
     private UserAttributeRepository userAttributeRepository;
 
@@ -55,10 +85,22 @@ public class SearchServiceImpl implements SearchService {
 
     @Autowired
     private RoleAttributeRepository roleAttributeRepository;
+
+    @Autowired
+    private RoleEntityRepository roleEntityRepository;
+
+    @Autowired
+    private IdentityProjectionRepository identityProjectionRepository;
     
     @Value("${keycloak.realm}")
     private String realm;
 
+    @Value("${search.batch-size:500}")
+    private int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
      * {@inheritDoc}
      */
@@ -68,6 +110,14 @@ public class SearchServiceImpl implements SearchService {
         return userAttributeRepository.findValueByAttributeOfUserId(attribute.getValue(), userId);
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isIndexed(IdentityPropertyType attribute) {
+        return false;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -103,6 +153,115 @@ public class SearchServiceImpl implements SearchService {
         return userAttributeRepository.findUserIdsByAttribute(attribute.getValue(), value);
     }
     
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> findUserIds(Map<IdentityPropertyType, String> searchFilter) {
+        return userEntityRepository.findAll(IdentitySearchPlanner.plan(realm, searchFilter), Sort.by("username")).stream()
+            .map(UserEntity::getUserId)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<String> findUserIds(Map<IdentityPropertyType, String> searchFilter, KeysetRequest page) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<UserEntity> root = query.from(UserEntity.class);
+        Path<String> userId = root.get("userId");
+
+        Predicate filter = IdentitySearchPlanner.plan(realm, searchFilter).toPredicate(root, query, cb);
+        Path<?> sortKey;
+
+        // keyset: raw (sortKey, userId) strictly after last returned row, so index range scan could be used
+        if (SORT_CREATED.equals(page.getProperty())) {
+            Path<Long> created = root.get("createdTimestamp");
+            if (!page.isFirst()) {
+                filter = cb.and(filter, after(cb, created, parseCreated(page), true, userId, page));
+            }
+            sortKey = created;
+        } else {
+            Path<String> value = root.get(page.getProperty());
+            if (!page.isFirst()) {
+                filter = cb.and(filter, after(cb, value, page.getAfterValue(), !NOT_NULL_SORT.contains(page.getProperty()), userId, page));
+            }
+            sortKey = value;
+        }
+
+        query.multiselect(userId, sortKey).where(filter).orderBy(
+            page.isDescending() ? cb.desc(sortKey) : cb.asc(sortKey),
+            page.isDescending() ? cb.desc(userId) : cb.asc(userId));
+
+        // one more row only to know if next page exists
+        List<Object[]> rows = entityManager.createQuery(query).setMaxResults(page.getLimit() + 1).getResultList();
+        boolean hasNext = rows.size() > page.getLimit();
+        if (hasNext) {
+            rows = rows.subList(0, page.getLimit());
+        }
+
+        Object[] last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        return new KeysetPage<>(rows.stream().map(row -> (String) row[0]).collect(Collectors.toList()),
+            hasNext ? page.cursor((String) last[0], last[1]) : null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamIdentityProjections(IdentityPropertyType attribute, String value, Consumer<IdentityProjection> consumer) {
+        try (Stream<IdentityProjection> identities = identityProjectionRepository.streamByAttribute(attribute.getValue(), value)) {
+            identities.forEach(consumer);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PinIdentityProjection> findPinIdentity(String username) {
+        return StringUtils.hasText(username) ? identityProjectionRepository.findPinIdentityByUsername(realm, username.toLowerCase()) : Optional.empty();
+    }
+
+    /**
+     * Rows after last returned row in PostgreSQL order of nullable sort key: NULLS LAST for ascending and NULLS FIRST
+     * for descending (default of ORDER BY, same as forward/backward scan of B-tree index).
+     */
+    private <Y extends Comparable<? super Y>> Predicate after(CriteriaBuilder cb, Expression<Y> sortKey, Y value, boolean nullable,
+            Path<String> userId, KeysetRequest page) {
+
+        if (value == null) {
+            return page.isDescending()
+                ? cb.or(cb.isNotNull(sortKey), cb.and(cb.isNull(sortKey), cb.lessThan(userId, page.getAfterId())))
+                : cb.and(cb.isNull(sortKey), cb.greaterThan(userId, page.getAfterId()));
+        }
+
+        if (page.isDescending()) {
+            return cb.or(cb.lessThan(sortKey, value), cb.and(cb.equal(sortKey, value), cb.lessThan(userId, page.getAfterId())));
+        }
+
+        Predicate after = cb.or(cb.greaterThan(sortKey, value), cb.and(cb.equal(sortKey, value), cb.greaterThan(userId, page.getAfterId())));
+        return nullable ? cb.or(after, cb.isNull(sortKey)) : after;
+    }
+
+    private Long parseCreated(KeysetRequest page) {
+        if (page.getAfterValue() == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(page.getAfterValue());
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(page.getAfterValue());
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -141,6 +300,32 @@ public class SearchServiceImpl implements SearchService {
         return !credentialRepository.findCredentialsByUserIdAndType(identityId, "password").isEmpty();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Set<String> findUserIdsWithCredentials(Collection<String> identityIds) {
+        Set<String> userIds = new HashSet<>();
+        for (List<String> chunk : chunks(identityIds)) {
+            userIds.addAll(credentialRepository.findUserIdByCredentialsType(chunk, "password"));
+        }
+        return userIds;
+    }
+
+    /**
+     * Streams IDs of all Users with password credentials.
+     * 
+     * @param consumer
+     *            consumer of User's IDs
+     */
+    @Transactional(readOnly = true)
+    public void scanUserIdsWithCredentials(Consumer<String> consumer) {
+        try (Stream<String> userIds = credentialRepository.streamUserIdByCredentialsType("password")) {
+            userIds.forEach(consumer);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -159,4 +344,162 @@ public class SearchServiceImpl implements SearchService {
     public Optional<String> findBinaryMaskForRole(String roleId) {
         return roleAttributeRepository.findBinaryMaskForRole(roleId).stream().findFirst();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Set<String>> findRoleMappingsByUserIds(Collection<String> userIds) {
+        Map<String, Set<String>> mappings = new HashMap<>();
+        for (List<String> chunk : chunks(userIds)) {
+            for (Object[] row : roleEntityRepository.findRoleMappingsByUserIds(chunk)) {
+                mappings.computeIfAbsent((String) row[0], k -> new HashSet<>()).add((String) row[1]);
+            }
+        }
+        return mappings;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<IdentityProjection> findIdentityProjections(IdentityPropertyType attribute, String value) {
+
+        if (!StringUtils.hasText(value)) {
+            return new ArrayList<>();
+        }
+
+        switch (attribute) {
+        case ID:
+            return identityProjectionRepository.findByIds(Arrays.asList(value));
+        case USERNAME:
+            return identityProjectionRepository.findByUsername(realm, value.toLowerCase());
+        case EMAIL:
+            return identityProjectionRepository.findByEmail(realm, value.toLowerCase());
+        case ATTR_NOTE:
+            return identityProjectionRepository.findByAttribute(attribute.getValue(), value.toLowerCase());
+        case ATTR_HAS_CREDENTIALS:
+            List<String> userIds = findUserIdsByAttribute(attribute, value);
+            return userIds.isEmpty() ? new ArrayList<>() : identityProjectionRepository.findByIds(userIds);
+        default:
+            return identityProjectionRepository.findByAttribute(attribute.getValue(), value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserEntity> findUsersByIds(Collection<String> userIds) {
+        List<UserEntity> users = new ArrayList<>();
+        for (List<String> chunk : chunks(userIds)) {
+            users.addAll(userEntityRepository.findAllById(chunk));
+        }
+        return users;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Map<String, List<String>>> findUserAttributesByIds(Collection<String> userIds) {
+        Map<String, Map<String, List<String>>> attributes = new HashMap<>();
+        for (List<String> chunk : chunks(userIds)) {
+            for (Object[] row : userAttributeRepository.findAttributesByUserIds(chunk)) {
+                attributes.computeIfAbsent((String) row[0], k -> new HashMap<>())
+                    .computeIfAbsent((String) row[1], k -> new ArrayList<>()).add((String) row[2]);
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Streams business keys of all Users, each as row [userId, attribute name, value].
+     * 
+     * @param attributes
+     *            requested keys ({@link IdentityPropertyType#USERNAME}, {@link IdentityPropertyType#EMAIL} or User's attributes)
+     * @param consumer
+     *            consumer of rows
+     */
+    @Transactional(readOnly = true)
+    public void scanUserKeys(Collection<IdentityPropertyType> attributes, Consumer<Object[]> consumer) {
+
+        try (Stream<Object[]> users = userEntityRepository.streamUserKeys(realm)) {
+            users.forEach(row -> userKeys(row, attributes, consumer));
+        }
+
+        try (Stream<Object[]> values = userAttributeRepository.streamAttributes(attributeNames(attributes))) {
+            values.forEach(consumer);
+        }
+    }
+
+    /**
+     * Search business keys of specified Users, each as row [userId, attribute name, value].
+     * 
+     * @param userIds
+     *            User's IDs
+     * @param attributes
+     *            requested keys ({@link IdentityPropertyType#USERNAME}, {@link IdentityPropertyType#EMAIL} or User's attributes)
+     * @return {@link List} of rows
+     */
+    @Transactional(readOnly = true)
+    public List<Object[]> findUserKeys(Collection<String> userIds, Collection<IdentityPropertyType> attributes) {
+        List<Object[]> keys = new ArrayList<>();
+        for (List<String> chunk : chunks(userIds)) {
+            userEntityRepository.findUserKeys(chunk).forEach(row -> userKeys(row, attributes, keys::add));
+            keys.addAll(userAttributeRepository.findAttributesByUserIds(chunk, attributeNames(attributes)));
+        }
+        return keys;
+    }
+
+    /**
+     * Returns creation time of the newest User.
+     * 
+     * @return {@link Long} timestamp in millis or {@code null} when there are no Users
+     */
+    @Transactional(readOnly = true)
+    public Long findMaxCreatedTimestamp() {
+        return userEntityRepository.findMaxCreatedTimestamp(realm);
+    }
+
+    /**
+     * Search Users created since specified time.
+     * 
+     * @param timestamp
+     *            creation time in millis (inclusive)
+     * @return {@link List} of rows [userId, createdTimestamp]
+     */
+    @Transactional(readOnly = true)
+    public List<Object[]> findUsersCreatedSince(long timestamp) {
+        return userEntityRepository.findUsersCreatedSince(realm, timestamp);
+    }
+
+    private void userKeys(Object[] row, Collection<IdentityPropertyType> attributes, Consumer<Object[]> consumer) {
+        if (row[1] != null && attributes.contains(IdentityPropertyType.USERNAME)) {
+            consumer.accept(new Object[] { row[0], IdentityPropertyType.USERNAME.getValue(), row[1] });
+        }
+        if (row[2] != null && attributes.contains(IdentityPropertyType.EMAIL)) {
+            consumer.accept(new Object[] { row[0], IdentityPropertyType.EMAIL.getValue(), row[2] });
+        }
+    }
+
+    private List<String> attributeNames(Collection<IdentityPropertyType> attributes) {
+        return attributes.stream()
+            .filter(a -> a != IdentityPropertyType.USERNAME && a != IdentityPropertyType.EMAIL)
+            .map(IdentityPropertyType::getValue)
+            .collect(Collectors.toList());
+    }
+
+    private List<List<String>> chunks(Collection<String> values) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < distinct.size(); i += batchSize) {
+            chunks.add(distinct.subList(i, Math.min(i + batchSize, distinct.size())));
+        }
+        return chunks;
+    }
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.util.CollectionUtils;
+
+/**
+ * Immutable precompiled translations - dense table of texts by key with one column per supported language.
+ * <p>
+ * Columns are resolved once when table is built (language bundle, bundle of system locale for languages without
+ * own bundle, base bundle - same chain as {@code ResourceBundleMessageSource} with fallback to system locale), so
+ * lookup is one map access and one array access without building of any string. Last column is used for not
+ * supported languages (bundle of system locale, base bundle), their translation attributes of entities are kept aside.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 17:24:05
+ */
+public final class TranslationCatalog {
+
+    private static final TranslationCatalog EMPTY = new TranslationCatalog(Collections.emptyList(), Collections.emptyMap());
+
+    /** Column by language (interned by {@link Locale}) */
+    private final Map<String, Integer> columns;
+
+    /** Name of translation attribute by column ie. translation[cs] */
+    private final String[] attributeNames;
+
+    /** Texts by interned key and column */
+    private final Map<String, String[]> table;
+
+    /** Texts of translation attributes of not supported languages by key and language (rare) */
+    private final Map<String, Map<String, String>> others;
+
+    private TranslationCatalog(List<String> languages, Map<String, String[]> table) {
+        this(languages, table, Collections.emptyMap());
+    }
+
+    private TranslationCatalog(List<String> languages, Map<String, String[]> table, Map<String, Map<String, String>> others) {
+        Map<String, Integer> columns = new HashMap<>();
+        this.attributeNames = new String[languages.size() + 1];
+        for (int column = 0; column < languages.size(); column++) {
+            columns.put(languages.get(column), column);
+            attributeNames[column] = LocalizationService.ATTR_TRANSLATION + "[" + languages.get(column) + "]";
+        }
+        this.columns = Collections.unmodifiableMap(columns);
+        this.table = Collections.unmodifiableMap(table);
+        this.others = Collections.unmodifiableMap(others);
+    }
+
+    /**
+     * Catalog without any text.
+     *
+     * @return {@link TranslationCatalog} empty catalog
+     */
+    public static TranslationCatalog empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Load catalog from UTF-8 property bundles on classpath.
+     *
+     * @param languages
+     *            supported languages
+     * @param basename
+     *            basename of bundles ie. i18n/messages
+     * @return {@link TranslationCatalog} with all keys of all bundles
+     */
+    public static TranslationCatalog load(List<Locale> languages, String basename) {
+
+        Properties base = bundle(basename);
+        Properties system = bundle(basename + "_" + Locale.getDefault().getLanguage());
+
+        List<String> columns = new ArrayList<>();
+        List<Properties> bundles = new ArrayList<>();
+        for (Locale locale : languages) {
+            Properties bundle = bundle(basename + "_" + locale.getLanguage());
+            columns.add(locale.getLanguage());
+            bundles.add(bundle.isEmpty() ? system : bundle);
+        }
+
+        Map<String, String[]> table = new HashMap<>();
+        for (Properties bundle : bundles) {
+            bundle.stringPropertyNames().forEach(key -> table.computeIfAbsent(key.intern(), k -> new String[columns.size() + 1]));
+        }
+        system.stringPropertyNames().forEach(key -> table.computeIfAbsent(key.intern(), k -> new String[columns.size() + 1]));
+        base.stringPropertyNames().forEach(key -> table.computeIfAbsent(key.intern(), k -> new String[columns.size() + 1]));
+
+        table.forEach((key, texts) -> {
+            for (int column = 0; column < bundles.size(); column++) {
+                texts[column] = bundles.get(column).getProperty(key, base.getProperty(key));
+            }
+            texts[bundles.size()] = system.getProperty(key, base.getProperty(key));
+        });
+
+        return new TranslationCatalog(columns, table);
+    }
+
+    private static Properties bundle(String name) {
+        Properties properties = new Properties();
+        InputStream stream = TranslationCatalog.class.getClassLoader().getResourceAsStream(name + ".properties");
+        if (stream == null) {
+            return properties;
+        }
+        try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't load bundle " + name, e);
+        }
+        return properties;
+    }
+
+    /**
+     * New catalog with texts of entities (roles, groups) - translation attributes override texts of bundles.
+     *
+     * @param attributesByKey
+     *            entity attributes by translation key ie. role.role_tlm00_r
+     * @return {@link TranslationCatalog} with texts of this catalog and entities
+     */
+    public TranslationCatalog with(Map<String, Map<String, List<String>>> attributesByKey) {
+
+        List<String> languages = new ArrayList<>(Collections.nCopies(columns.size(), (String) null));
+        columns.forEach((language, column) -> languages.set(column, language));
+
+        Map<String, String[]> merged = new HashMap<>(table);
+        Map<String, Map<String, String>> mergedOthers = new HashMap<>(others);
+        attributesByKey.forEach((key, attributes) -> {
+            String[] texts = table.get(key);
+            texts = texts == null ? new String[attributeNames.length] : texts.clone();
+            String common = first(attributes, LocalizationService.ATTR_TRANSLATION);
+            for (int column = 0; column < texts.length; column++) {
+                String text = column < languages.size() ? first(attributes, attributeNames[column]) : null;
+                text = text != null ? text : common;
+                if (text != null) {
+                    texts[column] = text;
+                }
+            }
+            merged.put(key.intern(), texts);
+
+            Map<String, String> other = others(attributes);
+            if (!other.isEmpty()) {
+                mergedOthers.put(key.intern(), other);
+            }
+        });
+
+        return new TranslationCatalog(languages, merged, mergedOthers);
+    }
+
+    /** Translation attributes of languages without own column ie. translation[xx] */
+    private Map<String, String> others(Map<String, List<String>> attributes) {
+        Map<String, String> other = new HashMap<>();
+        if (attributes == null) {
+            return other;
+        }
+        String prefix = LocalizationService.ATTR_TRANSLATION + "[";
+        attributes.forEach((name, values) -> {
+            if (name.startsWith(prefix) && name.endsWith("]") && !CollectionUtils.isEmpty(values)) {
+                String language = name.substring(prefix.length(), name.length() - 1);
+                if (!columns.containsKey(language)) {
+                    other.put(language, values.get(0));
+                }
+            }
+        });
+        return other;
+    }
+
+    private static String first(Map<String, List<String>> attributes, String name) {
+        List<String> values = attributes == null ? null : attributes.get(name);
+        return CollectionUtils.isEmpty(values) ? null : values.get(0);
+    }
+
+    /**
+     * Precompiled text.
+     *
+     * @param key
+     *            key in i18n
+     * @param locale
+     *            locale of user
+     * @return translated text or {@code null} when key is not known
+     */
+    public String get(String key, Locale locale) {
+        String[] texts = key == null ? null : table.get(key);
+        if (texts == null) {
+            return null;
+        }
+        int column = column(locale);
+        if (column == attributeNames.length - 1 && !others.isEmpty()) {
+            String text = others.getOrDefault(key, Collections.emptyMap()).get(locale.getLanguage());
+            if (text != null) {
+                return text;
+            }
+        }
+        return texts[column];
+    }
+
+    /**
+     * Name of entity attribute with translation for locale.
+     *
+     * @param locale
+     *            locale of user
+     * @return {@link String} ie. translation[cs] or {@code null} for not supported language
+     */
+    public String attributeName(Locale locale) {
+        return attributeNames[column(locale)];
+    }
+
+    private int column(Locale locale) {
+        Integer column = columns.get(locale.getLanguage());
+        return column == null ? attributeNames.length - 1 : column;
+    }
+
+    public int size() {
+        return table.size();
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.util;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Page of keyset (cursor) pagination.
+ *
+ * @param <T>
+ *            type of content
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 15:14:02
+ */
+@Getter
+@AllArgsConstructor
+public class KeysetPage<T> {
+
+    /** HTTP header with cursor of next page */
+    public static final String HEADER_NEXT_CURSOR = "X-Next-Cursor";
+
+    private final List<T> content;
+
+    /** Cursor of next page (null for last page) */
+    private final String next;
+
+    public <R> KeysetPage<R> map(Function<List<T>, List<R>> mapper) {
+        return new KeysetPage<>(mapper.apply(content), next);
+    }
+
+    public <R> KeysetPage<R> mapEach(Function<T, R> mapper) {
+        return new KeysetPage<>(content.stream().map(mapper).collect(Collectors.toList()), next);
+    }
+}
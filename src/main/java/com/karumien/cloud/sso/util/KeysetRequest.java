@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.karumien.cloud.sso.exceptions.InvalidCursorException;
+
+import lombok.Getter;
+
+/**
+ * Keyset (cursor) page request - one sort property with User ID as tiebreaker.
+ * <p>
+ * Cursor is opaque for client: Base64 of sort property, direction, last returned User ID and its sort value (missing
+ * for NULL). Cursor of other sort is rejected.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 15:12:40
+ */
+@Getter
+public class KeysetRequest {
+
+    private static final String SEPARATOR = ":";
+
+    private static final String ASC = "ASC";
+
+    private static final String DESC = "DESC";
+
+    private final String property;
+
+    private final boolean descending;
+
+    private final int limit;
+
+    /** User ID of last returned row (null for first page) */
+    private final String afterId;
+
+    /** Sort value of last returned row (null for first page or NULL value) */
+    private final String afterValue;
+
+    public KeysetRequest(String property, boolean descending, int limit, String after) {
+        this.property = property;
+        this.descending = descending;
+        this.limit = limit;
+
+        if (after == null) {
+            this.afterId = null;
+            this.afterValue = null;
+        } else {
+            String cursor;
+            try {
+                cursor = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidCursorException(after);
+            }
+            // property:direction:userId[:value]
+            String[] parts = cursor.split(SEPARATOR, 4);
+            if (parts.length < 3 || parts[2].isEmpty() || !parts[0].equals(property) || !parts[1].equals(descending ? DESC : ASC)) {
+                throw new InvalidCursorException(after);
+            }
+            this.afterId = parts[2];
+            this.afterValue = parts.length == 4 ? parts[3] : null;
+        }
+    }
+
+    public boolean isFirst() {
+        return afterId == null;
+    }
+
+    /**
+     * Cursor of this sort pointing after specified row.
+     *
+     * @param userId
+     *            User ID of last returned row
+     * @param value
+     *            sort value of last returned row
+     * @return opaque cursor for next page
+     */
+    public String cursor(String userId, Object value) {
+        String cursor = property + SEPARATOR + (descending ? DESC : ASC) + SEPARATOR + userId
+            + (value == null ? "" : SEPARATOR + value.toString());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -50,4 +50,30 @@ public class PageableUtils {
         return PageRequest.of(page, size, Sort.by(orders));
     }
 
+    /**
+     * Keyset (cursor) page request, sorted by one of available properties (first available is default).
+     *
+     * @param limit
+     *            page size
+     * @param after
+     *            cursor of previous page (null for first page)
+     * @param sort
+     *            sort property ie. 'name', same 'name,ASC' or 'name,DESC'
+     * @param available
+     *            allowed sort properties
+     * @return {@link KeysetRequest}
+     */
+    public static KeysetRequest getKeysetRequest(Integer limit, String after, String sort, List<String> available) {
+
+        boolean desc = sort != null && sort.endsWith(",DESC");
+        String property = sort == null ? null : sort.indexOf(',') > 0 ? sort.substring(0, sort.indexOf(',')) : sort;
+
+        if (!available.contains(property)) {
+            property = available.get(0);
+            desc = false;
+        }
+
+        return new KeysetRequest(property, desc, limit == null || limit < 1 ? 10 : limit, after);
+    }
+
 }
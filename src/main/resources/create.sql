@@ -25,6 +25,29 @@ CREATE TABLE PLUGIN_REBIRTH
    PRIMARY KEY (id)
 );
 
+CREATE TABLE PLUGIN_JOB
+(
+   id varchar(36) NOT NULL,
+   type varchar(40) NOT NULL,
+   state varchar(20) NOT NULL,
+   modules varchar(1024) NOT NULL,
+   accounts text NOT NULL,
+   apply_roles boolean,
+   account_index integer NOT NULL,
+   accounts_total integer NOT NULL,
+   identities_processed integer NOT NULL,
+   identities_failed integer NOT NULL,
+   failures text,
+   error varchar(1024),
+   node varchar(255),
+   heartbeat timestamp,
+   created timestamp NOT NULL,
+   finished timestamp,
+   PRIMARY KEY (id)
+);
+
+create index ix_plugin_job_state on PLUGIN_JOB(state, created);
+
 ALTER TABLE PLUGIN_ACCOUNT_MODULE 
 ADD CONSTRAINT fk_plugin_account_account FOREIGN KEY (account_id) REFERENCES PLUGIN_ACCOUNT (id) ON DELETE CASCADE;
 
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.Test;
+import org.keycloak.common.VerificationException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests {@link LocalTokenVerifier}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 20:02:31
+ */
+public class LocalTokenVerifierTest {
+
+    private static final String ISSUER = "http://localhost/auth/realms/test";
+
+    private final KeyPair keys;
+
+    private final LocalTokenVerifier verifier;
+
+    public LocalTokenVerifierTest() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keys = generator.generateKeyPair();
+        verifier = new LocalTokenVerifier(kid -> "k1".equals(kid) ? Optional.of(keys.getPublic()) : Optional.empty(),
+            () -> Collections.singleton("k1"), ISSUER, "sso", 0, 10, new ObjectMapper());
+    }
+
+    private String token(String kid, String claims) throws GeneralSecurityException {
+        return token(keys, kid, claims);
+    }
+
+    private String token(KeyPair keys, String kid, String claims) throws GeneralSecurityException {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String content = encoder.encodeToString(("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"" + kid + "\"}").getBytes(StandardCharsets.UTF_8))
+            + "." + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(keys.getPrivate());
+        signature.update(content.getBytes(StandardCharsets.US_ASCII));
+        return content + "." + encoder.encodeToString(signature.sign());
+    }
+
+    private String claims(long exp, String iss, String aud) {
+        return "{\"sub\":\"u1\",\"typ\":\"Bearer\",\"exp\":" + exp + ",\"iss\":\"" + iss + "\",\"aud\":" + aud + "}";
+    }
+
+    private long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private void assertInvalid(String token) {
+        try {
+            verifier.verify(token);
+            fail("Token must be rejected");
+        } catch (VerificationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void validToken() throws Exception {
+        String token = token("k1", claims(now() + 60, ISSUER, "[\"account\",\"sso\"]"));
+        assertEquals("u1", verifier.verify(token).get("sub"));
+        // remembered token
+        assertEquals("u1", verifier.verify(token).get("sub"));
+        assertEquals("u1", verifier.verify(token("k1", claims(now() + 60, ISSUER, "\"sso\""))).get("sub"));
+    }
+
+    @Test
+    public void invalidTokens() throws Exception {
+        assertInvalid(null);
+        assertInvalid("abc");
+        assertInvalid(token("k1", claims(now() - 60, ISSUER, "\"sso\"")));
+        assertInvalid(token("k1", claims(now() + 60, "http://other/realms/test", "\"sso\"")));
+        assertInvalid(token("k1", claims(now() + 60, ISSUER, "\"other\"")));
+        assertInvalid(token("k2", claims(now() + 60, ISSUER, "\"sso\"")));
+
+        String token = token("k1", claims(now() + 60, ISSUER, "\"sso\""));
+        assertInvalid(token.substring(0, token.lastIndexOf('.') + 1) + token.substring(token.lastIndexOf('.') + 2));
+    }
+
+    @Test
+    public void malformedSignatureDoesNotBreakVerifier() throws Exception {
+        assertEquals("u1", verifier.verify(token("k1", claims(now() + 60, ISSUER, "\"sso\""))).get("sub"));
+
+        String token = token("k1", claims(now() + 61, ISSUER, "\"sso\""));
+        assertInvalid(token.substring(0, token.lastIndexOf('.') + 1) + "!!!");
+        assertEquals(0, verifier.verifiers());
+
+        // same thread, same kid
+        assertEquals("u1", verifier.verify(token("k1", claims(now() + 62, ISSUER, "\"sso\""))).get("sub"));
+        assertEquals(1, verifier.verifiers());
+    }
+
+    @Test
+    public void rotatedKeysAreDropped() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair rotated = generator.generateKeyPair();
+
+        Map<String, PublicKey> realmKeys = new HashMap<>();
+        realmKeys.put("k1", keys.getPublic());
+        LocalTokenVerifier rotating = new LocalTokenVerifier(kid -> Optional.ofNullable(realmKeys.get(kid)), realmKeys::keySet,
+            ISSUER, "sso", 0, 10, new ObjectMapper());
+
+        assertEquals("u1", rotating.verify(token("k1", claims(now() + 60, ISSUER, "\"sso\""))).get("sub"));
+        assertEquals(1, rotating.verifiers());
+
+        // k1 removed from realm by rotation
+        realmKeys.clear();
+        realmKeys.put("k2", rotated.getPublic());
+        assertEquals("u1", rotating.verify(token(rotated, "k2", claims(now() + 60, ISSUER, "\"sso\""))).get("sub"));
+        assertEquals(1, rotating.verifiers());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.internal;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.net.URI;
+
+import javax.ws.rs.client.ClientRequestContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests {@link TransactionGuardFilter}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 23:06:51
+ */
+public class TransactionGuardFilterTest {
+
+    private final ClientRequestContext request = mock(ClientRequestContext.class);
+
+    @Before
+    public void init() {
+        when(request.getMethod()).thenReturn("GET");
+        when(request.getUri()).thenReturn(URI.create("http://localhost/auth/admin/realms/eurowag/users/1"));
+    }
+
+    @After
+    public void destroy() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    public void callWithoutTransaction() {
+        new TransactionGuardFilter(TransactionGuardFilter.Mode.FAIL).filter(request);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void callInTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        new TransactionGuardFilter(TransactionGuardFilter.Mode.FAIL).filter(request);
+    }
+
+    @Test
+    public void callInTransactionWarning() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        new TransactionGuardFilter(TransactionGuardFilter.Mode.WARN).filter(request);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.MDC;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.karumien.cloud.sso.exceptions.DeadlineExceededException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link FanOutServiceImpl}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 21:58:13
+ */
+public class FanOutServiceTest {
+
+    private final FanOutServiceImpl fanOutService = new FanOutServiceImpl();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final List<Integer> items = IntStream.range(0, 40).boxed().collect(Collectors.toList());
+
+    @Before
+    public void init() {
+        ReflectionTestUtils.setField(fanOutService, "nodes", 2);
+        ReflectionTestUtils.setField(fanOutService, "parallelismPerNode", 4);
+        ReflectionTestUtils.setField(fanOutService, "queueSize", 4);
+        ReflectionTestUtils.setField(fanOutService, "deadline", 2000L);
+        ReflectionTestUtils.setField(fanOutService, "meterRegistry", meterRegistry);
+        fanOutService.init();
+    }
+
+    @After
+    public void destroy() {
+        fanOutService.destroy();
+        MDC.clear();
+    }
+
+    @Test
+    public void resultsInOrderWithContext() {
+        MDC.put("requestId", "r1");
+
+        long start = System.currentTimeMillis();
+        List<String> results = fanOutService.map("test", items, i -> {
+            sleep(100);
+            // nested batch runs inline
+            return i + ":" + MDC.get("requestId") + ":" + fanOutService.map("nested", Arrays.asList(1, 2), j -> j).size();
+        });
+
+        assertEquals(items.size(), results.size());
+        assertEquals("0:r1:2", results.get(0));
+        assertEquals("39:r1:2", results.get(39));
+        assertTrue(System.currentTimeMillis() - start < 40 * 100 / 2);
+        assertEquals("r1", MDC.get("requestId"));
+        assertEquals(1, meterRegistry.get("sso.fanout.batch").tag("batch", "test").timer().count());
+    }
+
+    @Test(expected = DeadlineExceededException.class)
+    public void deadline() {
+        fanOutService.forEach("test", items, i -> sleep(5000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void failure() {
+        fanOutService.forEach("test", items, i -> {
+            if (i == 5) {
+                throw new IllegalArgumentException("item " + i);
+            }
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
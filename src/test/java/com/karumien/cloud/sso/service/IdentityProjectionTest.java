@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.beans.Introspector;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import com.karumien.cloud.sso.api.entity.IdentityProjection;
+import com.karumien.cloud.sso.api.entity.PinIdentityProjection;
+import com.karumien.cloud.sso.api.model.IdentityInfo;
+import com.karumien.cloud.sso.api.model.IdentityState;
+import com.karumien.cloud.sso.api.repository.IdentityProjectionRepository;
+
+/**
+ * Tests pivot of {@link IdentityProjectionRepository} and {@link IdentityServiceImpl#mapping(IdentityProjection, boolean)}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 18. 10. 2026 09:12:37
+ */
+public class IdentityProjectionTest {
+
+    private final IdentityServiceImpl identityService = new IdentityServiceImpl();
+
+    private final SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+
+    /** Native query rows are mapped to projection by column alias */
+    private IdentityProjection projection(boolean hasCredentials, String lastLogin) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("identityId", "u1");
+        row.put("username", "novak");
+        row.put("firstName", "Jan");
+        row.put("lastName", "Novak");
+        row.put("email", "novak@karumien.com");
+        row.put("emailVerified", true);
+        row.put("enabled", false);
+        row.put("createdTimestamp", 1571300000000L);
+        row.put("accountNumber", "A1");
+        row.put("contactNumber", "C1");
+        row.put("nav4Id", "N1");
+        row.put("phone", "+420777000111");
+        row.put("note", "import");
+        row.put("locale", "cs");
+        row.put("lastLogin", lastLogin);
+        row.put("hasCredentials", hasCredentials);
+        return projections.createProjection(IdentityProjection.class, row);
+    }
+
+    private Set<String> aliases(String query) {
+        Set<String> aliases = new TreeSet<>();
+        Matcher matcher = Pattern.compile("as \"(\\w+)\"").matcher(query);
+        while (matcher.find()) {
+            aliases.add(matcher.group(1));
+        }
+        return aliases;
+    }
+
+    @Test
+    public void pivotAliasesMatchProjection() {
+
+        Set<String> properties = new TreeSet<>();
+        for (Method method : IdentityProjection.class.getMethods()) {
+            properties.add(Introspector.decapitalize(method.getName().substring(3)));
+        }
+
+        assertEquals(properties, aliases(IdentityProjectionRepository.SELECT_IDENTITY));
+        assertEquals(properties, aliases(IdentityProjectionRepository.STREAM_IDENTITY));
+    }
+
+    @Test
+    public void pinAliasesMatchProjection() throws NoSuchMethodException {
+
+        Set<String> properties = new TreeSet<>();
+        for (Method method : PinIdentityProjection.class.getMethods()) {
+            properties.add(Introspector.decapitalize(method.getName().substring(3)));
+        }
+
+        assertEquals(properties, aliases(IdentityProjectionRepository.class
+            .getMethod("findPinIdentityByUsername", String.class, String.class).getAnnotation(Query.class).value()));
+    }
+
+    @Test
+    public void streamWithoutAggregation() {
+        assertFalse(IdentityProjectionRepository.STREAM_IDENTITY.contains("group by"));
+        assertFalse(IdentityProjectionRepository.STREAM_IDENTITY.contains("order by"));
+    }
+
+    @Test
+    public void pivotedAttributes() {
+
+        IdentityInfo identity = identityService.mapping(projection(true, "2026-10-17 10:00:00"), true);
+
+        assertEquals("u1", identity.getIdentityId());
+        assertEquals("novak", identity.getUsername());
+        assertEquals("A1", identity.getAccountNumber());
+        assertEquals("C1", identity.getContactNumber());
+        assertEquals("N1", identity.getNav4Id());
+        assertEquals("+420777000111", identity.getPhone());
+        assertEquals("import", identity.getNote());
+        assertEquals("cs", identity.getLocale());
+        assertTrue(identity.isLocked());
+        assertEquals("2026-10-17 10:00:00", identity.getLoginInfo().getLastLogin());
+        assertNull(identity.getLoginInfo().getLastLogout());
+    }
+
+    @Test
+    public void credentialsFlag() {
+
+        IdentityInfo active = identityService.mapping(projection(true, "2026-10-17 10:00:00"), false);
+        assertEquals(IdentityState.ACTIVE, active.getState());
+        assertTrue(active.isHasCredentials());
+        assertNull(active.getLoginInfo());
+
+        IdentityInfo withCredentials = identityService.mapping(projection(true, null), false);
+        assertEquals(IdentityState.CREDENTIALS_CREATED, withCredentials.getState());
+        assertTrue(withCredentials.isHasCredentials());
+
+        IdentityInfo created = identityService.mapping(projection(false, null), false);
+        assertEquals(IdentityState.CREATED, created.getState());
+        assertFalse(created.isHasCredentials());
+    }
+}
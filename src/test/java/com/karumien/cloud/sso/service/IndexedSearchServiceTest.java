@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.karumien.cloud.sso.service.IndexedSearchServiceImpl.UserKeyIndex;
+
+/**
+ * Tests delta poll of {@link IndexedSearchServiceImpl}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 18. 10. 2026 14:12:08
+ */
+public class IndexedSearchServiceTest {
+
+    private final IndexedSearchServiceImpl searchService = new IndexedSearchServiceImpl();
+
+    private final SearchServiceImpl searchServiceImpl = mock(SearchServiceImpl.class);
+
+    private final List<Object[]> created = new ArrayList<>();
+
+    @Before
+    public void init() {
+        ReflectionTestUtils.setField(searchService, "searchServiceImpl", searchServiceImpl);
+        ReflectionTestUtils.setField(searchService, "credentialsIndexed", false);
+        ReflectionTestUtils.setField(searchService, "index", new UserKeyIndex());
+        ReflectionTestUtils.setField(searchService, "watermark", 100L);
+
+        when(searchServiceImpl.findUsersCreatedSince(100L)).thenAnswer(invocation -> created);
+        when(searchServiceImpl.findUserKeys(anyCollection(), any())).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    public void usersAtWatermarkReloadedOnce() {
+
+        created.add(new Object[] { "u1", 100L });
+        created.add(new Object[] { "u2", 100L });
+        searchService.poll();
+        searchService.poll();
+        verify(searchServiceImpl, times(1)).findUserKeys(anyCollection(), any());
+        verify(searchServiceImpl).findUserKeys(eq(Arrays.asList("u1", "u2")), any());
+
+        // new User with equal timestamp
+        created.add(new Object[] { "u3", 100L });
+        searchService.poll();
+        verify(searchServiceImpl).findUserKeys(eq(Arrays.asList("u3")), any());
+        searchService.poll();
+        verify(searchServiceImpl, times(2)).findUserKeys(anyCollection(), any());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.karumien.cloud.sso.api.entity.JobEntity;
+import com.karumien.cloud.sso.api.model.IdentityInfo;
+import com.karumien.cloud.sso.api.model.JobState;
+import com.karumien.cloud.sso.api.model.JobType;
+import com.karumien.cloud.sso.api.repository.JobEntityRepository;
+import com.karumien.cloud.sso.exceptions.DeadlineExceededException;
+
+/**
+ * Tests {@link JobServiceImpl}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 18. 10. 2026 10:42:17
+ */
+public class JobServiceTest {
+
+    private static final String JOB_ID = "job-1";
+
+    private final JobServiceImpl jobService = new JobServiceImpl();
+
+    private final JobEntityRepository jobEntityRepository = mock(JobEntityRepository.class);
+
+    private final AccountService accountService = mock(AccountService.class);
+
+    private final ModuleService moduleService = mock(ModuleService.class);
+
+    /** Runs items on caller thread */
+    private final FanOutService fanOutService = new FanOutService() {
+
+        @Override
+        public <T, R> List<R> map(String batch, Collection<T> items, Function<T, R> task) {
+            return items.stream().map(task).collect(Collectors.toList());
+        }
+
+        @Override
+        public <T> void forEach(String batch, Collection<T> items, Consumer<T> task) {
+            items.forEach(task);
+        }
+    };
+
+    private String node;
+
+    @Before
+    public void init() {
+        ReflectionTestUtils.setField(jobService, "chunkSize", 100);
+        ReflectionTestUtils.setField(jobService, "maxFailures", 100);
+        ReflectionTestUtils.setField(jobService, "jobEntityRepository", jobEntityRepository);
+        ReflectionTestUtils.setField(jobService, "accountService", accountService);
+        ReflectionTestUtils.setField(jobService, "moduleService", moduleService);
+        ReflectionTestUtils.setField(jobService, "fanOutService", fanOutService);
+        ReflectionTestUtils.setField(jobService, "mapper", new ObjectMapper());
+        node = (String) ReflectionTestUtils.getField(jobService, "node");
+
+        JobEntity job = new JobEntity();
+        job.setId(JOB_ID);
+        job.setType(JobType.ACTIVATE_MODULES.toString());
+        job.setState(JobState.RUNNING.toString());
+        job.setAccounts("100,200");
+        job.setAccountsTotal(2);
+        job.setNode(node);
+        when(jobEntityRepository.findById(JOB_ID)).thenReturn(Optional.of(job));
+        when(jobEntityRepository.heartbeat(eq(JOB_ID), eq(node), any())).thenReturn(1);
+
+        IdentityInfo identity = new IdentityInfo();
+        identity.setIdentityId("i1");
+        identity.setNav4Id("n1");
+        when(accountService.getAccountIdentities(anyString(), isNull(), isNull(), anyBoolean())).thenReturn(Arrays.asList(identity));
+    }
+
+    @Test
+    public void finishedWhenLeaseHeld() {
+        when(jobEntityRepository.checkpoint(eq(JOB_ID), eq(node), anyInt(), anyInt(), anyInt(), any(), any())).thenReturn(1);
+        when(jobEntityRepository.finish(eq(JOB_ID), eq(node), any(), any(), any())).thenReturn(1);
+
+        ReflectionTestUtils.invokeMethod(jobService, "run", JOB_ID);
+
+        verify(jobEntityRepository).checkpoint(eq(JOB_ID), eq(node), eq(1), eq(1), eq(0), any(), any());
+        verify(jobEntityRepository).checkpoint(eq(JOB_ID), eq(node), eq(2), eq(2), eq(0), any(), any());
+        verify(jobEntityRepository).finish(eq(JOB_ID), eq(node), eq(JobState.FINISHED.toString()), isNull(), any());
+        verify(jobEntityRepository, never()).save(any());
+    }
+
+    @Test
+    public void deadlineOfChunkFailsIdentities() {
+        ReflectionTestUtils.setField(jobService, "fanOutService", new FanOutService() {
+
+            @Override
+            public <T, R> List<R> map(String batch, Collection<T> items, Function<T, R> task) {
+                throw new DeadlineExceededException(batch);
+            }
+
+            @Override
+            public <T> void forEach(String batch, Collection<T> items, Consumer<T> task) {
+                throw new DeadlineExceededException(batch);
+            }
+        });
+        when(jobEntityRepository.checkpoint(eq(JOB_ID), eq(node), anyInt(), anyInt(), anyInt(), any(), any())).thenReturn(1);
+        when(jobEntityRepository.finish(eq(JOB_ID), eq(node), any(), any(), any())).thenReturn(1);
+
+        ReflectionTestUtils.invokeMethod(jobService, "run", JOB_ID);
+
+        // Job continues by next account
+        verify(jobEntityRepository).checkpoint(eq(JOB_ID), eq(node), eq(1), eq(1), eq(1), contains("Deadline exceeded: job"), any());
+        verify(jobEntityRepository).checkpoint(eq(JOB_ID), eq(node), eq(2), eq(2), eq(2), any(), any());
+        verify(jobEntityRepository).finish(eq(JOB_ID), eq(node), eq(JobState.FINISHED.toString()), isNull(), any());
+    }
+
+    @Test
+    public void stopsWhenCheckpointLostLease() {
+        // other node took Job after first account
+        when(jobEntityRepository.checkpoint(eq(JOB_ID), eq(node), anyInt(), anyInt(), anyInt(), any(), any())).thenReturn(0);
+
+        ReflectionTestUtils.invokeMethod(jobService, "run", JOB_ID);
+
+        verify(accountService).getAccountIdentities(eq("100"), isNull(), isNull(), anyBoolean());
+        verify(accountService, never()).getAccountIdentities(eq("200"), isNull(), isNull(), anyBoolean());
+        verify(jobEntityRepository, never()).finish(anyString(), anyString(), any(), any(), any());
+        verify(jobEntityRepository, never()).save(any());
+    }
+
+    @Test
+    public void failureNotStoredWhenLeaseLost() {
+        when(accountService.getAccountIdentities(eq("100"), isNull(), isNull(), anyBoolean())).thenThrow(new IllegalStateException("down"));
+        when(jobEntityRepository.finish(eq(JOB_ID), eq(node), any(), any(), any())).thenReturn(0);
+
+        ReflectionTestUtils.invokeMethod(jobService, "run", JOB_ID);
+
+        verify(jobEntityRepository).finish(eq(JOB_ID), eq(node), eq(JobState.FAILED.toString()), eq("down"), any());
+        verify(jobEntityRepository, never()).save(any());
+    }
+}
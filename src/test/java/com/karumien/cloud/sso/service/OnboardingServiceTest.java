@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.karumien.cloud.sso.api.model.AccountInfo;
+import com.karumien.cloud.sso.api.model.Credentials;
+import com.karumien.cloud.sso.api.model.IdentityInfo;
+import com.karumien.cloud.sso.api.model.OnBoardingInfo;
+import com.karumien.cloud.sso.api.model.OnBoardingItemResult;
+import com.karumien.cloud.sso.api.model.OnBoardingItemStatus;
+import com.karumien.cloud.sso.exceptions.DeadlineExceededException;
+
+/**
+ * Tests {@link OnboardingServiceImpl}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 23:24:51
+ */
+public class OnboardingServiceTest {
+
+    private final OnboardingServiceImpl onboardingService = new OnboardingServiceImpl();
+
+    private final AccountService accountService = mock(AccountService.class);
+
+    private final IdentityService identityService = mock(IdentityService.class);
+
+    /** Runs items on caller thread */
+    private final FanOutService fanOutService = new FanOutService() {
+
+        @Override
+        public <T, R> List<R> map(String batch, Collection<T> items, Function<T, R> task) {
+            return items.stream().map(task).collect(Collectors.toList());
+        }
+
+        @Override
+        public <T> void forEach(String batch, Collection<T> items, Consumer<T> task) {
+            items.forEach(task);
+        }
+    };
+
+    @Before
+    public void init() {
+        ReflectionTestUtils.setField(onboardingService, "chunkSize", 2);
+        ReflectionTestUtils.setField(onboardingService, "windowSize", 2);
+        ReflectionTestUtils.setField(onboardingService, "targetRate", 40d);
+        ReflectionTestUtils.setField(onboardingService, "accountService", accountService);
+        ReflectionTestUtils.setField(onboardingService, "identityService", identityService);
+        ReflectionTestUtils.setField(onboardingService, "fanOutService", fanOutService);
+
+        when(accountService.createAccounts(anyCollection())).thenReturn(Collections.singleton("A1"));
+        when(identityService.findIdentity(any())).thenReturn(Optional.empty());
+        when(identityService.createIdentity(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private OnBoardingInfo item(String accountNumber, String contactNumber) {
+        OnBoardingInfo onBoardingInfo = new OnBoardingInfo();
+        if (accountNumber != null) {
+            onBoardingInfo.setAccount(new AccountInfo().accountNumber(accountNumber).name("Account " + accountNumber));
+        }
+        if (contactNumber != null) {
+            onBoardingInfo.setIdentity(new IdentityInfo().contactNumber(contactNumber));
+        }
+        return onBoardingInfo;
+    }
+
+    @Test
+    public void resultOfEveryItem() {
+
+        OnBoardingInfo failing = item("A1", "C3");
+        failing.setCredentials(new Credentials());
+        doThrow(new IllegalStateException("policy")).when(identityService).createIdentityCredentials(eq("C3"), any());
+
+        UserRepresentation existing = new UserRepresentation();
+        when(identityService.findIdentity("C4")).thenReturn(Optional.of(existing));
+        when(identityService.mapping(existing, false)).thenReturn(new IdentityInfo().contactNumber("C4"));
+
+        List<OnBoardingItemResult> results = onboardingService.onboarding(Arrays.asList(
+            item("A1", "C1"), new OnBoardingInfo(), item("A1", "C1"), failing, item("A2", "C4"), item("A2", null)));
+
+        assertEquals(6, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(Integer.valueOf(i), results.get(i).getIndex());
+        }
+
+        assertEquals(OnBoardingItemStatus.CREATED, results.get(0).getStatus());
+        assertTrue(results.get(0).isAccountCreated());
+        assertEquals("A1", results.get(0).getIdentity().getAccountNumber());
+        assertEquals(OnBoardingItemStatus.INVALID, results.get(1).getStatus());
+        assertEquals(OnBoardingItemStatus.DUPLICATE, results.get(2).getStatus());
+        assertEquals(OnBoardingItemStatus.FAILED, results.get(3).getStatus());
+        assertEquals("credentials: policy", results.get(3).getMessage());
+        assertEquals(OnBoardingItemStatus.EXISTS, results.get(4).getStatus());
+        assertFalse(results.get(4).isAccountCreated());
+        assertEquals(OnBoardingItemStatus.EXISTS, results.get(5).getStatus());
+
+        // distinct accounts in one batch, duplicate identity is not processed
+        verify(accountService, times(1)).createAccounts(anyCollection());
+        verify(identityService, times(1)).findIdentity("C1");
+        verify(identityService, never()).updateIdentity(any(), any(), any());
+    }
+
+    @Test
+    public void duplicateByAnyIdentityKey() {
+
+        OnBoardingInfo nav4 = item("A1", "C1");
+        nav4.getIdentity().setNav4Id("N1");
+        OnBoardingInfo sameNav4 = item("A1", "C2");
+        sameNav4.getIdentity().setNav4Id("N1");
+        when(identityService.findIdentityNav4(any())).thenReturn(Optional.empty());
+
+        List<OnBoardingItemResult> results = onboardingService.onboarding(Arrays.asList(nav4, item("A1", "C1"), sameNav4, item("A1", "C2")));
+
+        assertEquals(OnBoardingItemStatus.CREATED, results.get(0).getStatus());
+        assertEquals(OnBoardingItemStatus.DUPLICATE, results.get(1).getStatus());
+        assertEquals(OnBoardingItemStatus.DUPLICATE, results.get(2).getStatus());
+        // key of rejected duplicate is not registered
+        assertEquals(OnBoardingItemStatus.CREATED, results.get(3).getStatus());
+        verify(identityService, times(1)).findIdentityNav4("N1");
+        verify(identityService, never()).findIdentity("C1");
+    }
+
+    @Test
+    public void accountsBatchFailed() {
+
+        OnBoardingInfo longName = item("A3", "C3");
+        longName.getAccount().setName(String.join("", Collections.nCopies(256, "x")));
+        OnBoardingInfo existingAccount = item(null, "C2");
+        existingAccount.getIdentity().setAccountNumber("A0");
+        when(accountService.createAccounts(anyCollection())).thenThrow(new IllegalStateException("connection reset"));
+
+        List<OnBoardingItemResult> results = onboardingService.onboarding(Arrays.asList(item("A1", "C1"), existingAccount, longName));
+
+        // too long column is rejected before batch, failed batch fails only items with Account
+        assertEquals(OnBoardingItemStatus.FAILED, results.get(0).getStatus());
+        assertEquals("account: connection reset", results.get(0).getMessage());
+        assertEquals(OnBoardingItemStatus.CREATED, results.get(1).getStatus());
+        assertEquals(OnBoardingItemStatus.INVALID, results.get(2).getStatus());
+        verify(identityService, never()).findIdentity("C1");
+    }
+
+    @Test
+    public void notFinishedItemsTimedOut() {
+
+        ReflectionTestUtils.setField(onboardingService, "fanOutService", new FanOutService() {
+
+            @Override
+            public <T, R> List<R> map(String batch, Collection<T> items, Function<T, R> task) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public <T> void forEach(String batch, Collection<T> items, Consumer<T> task) {
+                task.accept(items.iterator().next());
+                throw new DeadlineExceededException(batch);
+            }
+        });
+
+        List<OnBoardingItemResult> results = onboardingService.onboarding(Arrays.asList(item("A1", "C1"), item("A1", "C2")));
+
+        assertEquals(OnBoardingItemStatus.CREATED, results.get(0).getStatus());
+        assertEquals(OnBoardingItemStatus.TIMED_OUT, results.get(1).getStatus());
+        assertEquals(Integer.valueOf(1), results.get(1).getIndex());
+    }
+
+    @Test
+    public void streamContinuesAfterFailedWindow() {
+
+        OnBoardingInfo broken = mock(OnBoardingInfo.class);
+        when(broken.getAccount()).thenReturn(new AccountInfo().accountNumber("A1").name("Account A1"));
+        when(broken.getNote()).thenThrow(new IllegalStateException("broken"));
+
+        List<List<OnBoardingItemResult>> windows = new ArrayList<>();
+        assertEquals(3, onboardingService.onboarding(Arrays.asList(item("A1", "C1"), broken, item("A1", "C2")).iterator(), windows::add));
+
+        assertEquals(2, windows.size());
+        assertEquals(OnBoardingItemStatus.FAILED, windows.get(0).get(0).getStatus());
+        assertEquals(OnBoardingItemStatus.FAILED, windows.get(0).get(1).getStatus());
+        assertEquals("broken", windows.get(0).get(1).getMessage());
+        assertEquals(OnBoardingItemStatus.CREATED, windows.get(1).get(0).getStatus());
+        assertEquals(Integer.valueOf(2), windows.get(1).get(0).getIndex());
+    }
+
+    @Test
+    public void streamInWindowsUntilMalformedRecord() {
+
+        Iterator<OnBoardingInfo> records = new Iterator<OnBoardingInfo>() {
+
+            private final Iterator<OnBoardingInfo> items = Arrays.asList(item("A1", "C1"), item("A1", "C2"), item("A1", "C1")).iterator();
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public OnBoardingInfo next() {
+                if (!items.hasNext()) {
+                    throw new IllegalArgumentException("Unexpected character");
+                }
+                return items.next();
+            }
+        };
+
+        List<List<OnBoardingItemResult>> windows = new ArrayList<>();
+        assertEquals(4, onboardingService.onboarding(records, windows::add));
+
+        assertEquals(3, windows.size());
+        assertEquals(2, windows.get(0).size());
+        assertEquals(1, windows.get(1).size());
+        assertEquals(1, windows.get(2).size());
+
+        // index is position in stream, duplicates are detected inside window only
+        assertEquals(OnBoardingItemStatus.CREATED, windows.get(1).get(0).getStatus());
+        assertEquals(Integer.valueOf(2), windows.get(1).get(0).getIndex());
+        assertEquals(OnBoardingItemStatus.INVALID, windows.get(2).get(0).getStatus());
+        assertEquals(Integer.valueOf(3), windows.get(2).get(0).getIndex());
+        assertEquals("Malformed record: Unexpected character", windows.get(2).get(0).getMessage());
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import com.karumien.cloud.sso.api.model.PasswordPolicy;
+
+/**
+ * Tests {@link PasswordPolicyCatalog}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 18:47:02
+ */
+public class PasswordPolicyCatalogTest {
+
+    @Test
+    public void parsePolicy() {
+        PasswordPolicy policy = PasswordPolicyCatalog.parse(
+            "length(8) and digits(1) and upperCase(2) and notUsername(undefined) and regexPattern(^(a|b).*$) and passwordHistory(3)");
+
+        assertEquals(Integer.valueOf(8), policy.getMinLength());
+        assertEquals(Integer.valueOf(1), policy.getMinDigits());
+        assertEquals(Integer.valueOf(2), policy.getMinUpperCase());
+        assertEquals(Integer.valueOf(3), policy.getPasswordHistory());
+        assertEquals(true, policy.isNotUseUsername());
+        assertEquals("^(a|b).*$", policy.getRegexPattern());
+        assertNull(policy.getMinLowerCase());
+    }
+
+    @Test
+    public void emptyPolicy() {
+        assertEquals(Integer.valueOf(1), PasswordPolicyCatalog.parse(null).getMinLength());
+        assertEquals(Integer.valueOf(1), PasswordPolicyCatalog.parse("").getMinLength());
+    }
+
+    @Test
+    public void translationsByLanguage() {
+        PasswordPolicyCatalog catalog = PasswordPolicyCatalog.of("length(6)", Arrays.asList(new Locale("en"), new Locale("cs")),
+            (locale, policy) -> locale.getLanguage() + policy.getMinLength());
+
+        assertEquals("cs6", catalog.get(new Locale("cs")).getTranslation());
+        assertEquals("en6", catalog.get(new Locale("xx")).getTranslation());
+        assertNull(catalog.getRules().getTranslation());
+    }
+}
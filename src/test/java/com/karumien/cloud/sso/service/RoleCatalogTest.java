@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.keycloak.representations.idm.RoleRepresentation;
+
+import com.karumien.cloud.sso.api.entity.RoleEntity;
+
+/**
+ * Tests {@link RoleCatalog}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 16:52:08
+ */
+public class RoleCatalogTest {
+
+    private static RoleEntity role(String id, String name) {
+        RoleEntity role = new RoleEntity();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+
+    private final RoleCatalog catalog = RoleCatalog.of(1,
+        Arrays.asList(role("1", "TLM00_ADMIN"), role("2", "ROLE_TLM00_R"), role("3", "ROLE_TLM00_W"), role("4", "ROLE_TLM01_R")),
+        Arrays.asList(new Object[] { "1", "2", "ROLE_TLM00_R", false }, new Object[] { "1", "c", "client", true },
+            new Object[] { "c", "3", "ROLE_TLM00_W", false }, new Object[] { "3", "1", "TLM00_ADMIN", false }),
+        Arrays.asList(new Object[] { "2", RoleService.ATTR_BINARY_MASK, "10000_R" }, new Object[] { "3", RoleService.ATTR_BINARY_MASK, "01000_W" },
+            new Object[] { "4", RoleService.ATTR_BINARY_MASK, "1_R" }, new Object[] { "4", "translation_en", "Read" }));
+
+    @Test
+    public void effectiveRolesByClosure() {
+        // "c" is client role (not in catalog), cycle 1 -> c -> 3 -> 1
+        assertEquals(new HashSet<>(Arrays.asList("1", "2", "3")), catalog.effectiveRoleIds(Arrays.asList("1")));
+        assertEquals(new HashSet<>(Arrays.asList("1", "2", "3", "4")), catalog.effectiveRoleIds(Arrays.asList("2", "3", "4")));
+        assertEquals(Collections.emptySet(), catalog.effectiveRoleIds(Arrays.asList("unknown")));
+    }
+
+    @Test
+    public void realmRolesThroughClientComposites() {
+        // realm 1 -> client c -> client d -> realm 2, client d is not child of any realm role directly
+        RoleCatalog clientComposites = RoleCatalog.of(1, Arrays.asList(role("1", "TLM00_ADMIN"), role("2", "ROLE_TLM00_R")),
+            Arrays.asList(new Object[] { "1", "c", "client", true }, new Object[] { "c", "d", "client-read", true },
+                new Object[] { "d", "2", "ROLE_TLM00_R", false }),
+            Collections.emptyList());
+
+        assertEquals(new HashSet<>(Arrays.asList("1", "2")), clientComposites.effectiveRoleIds(Arrays.asList("1")));
+        assertEquals(new HashSet<>(Arrays.asList("2")), clientComposites.effectiveRoleIds(Arrays.asList("2")));
+    }
+
+    @Test
+    public void rolesWithComposites() {
+        assertEquals(Arrays.asList("ROLE_TLM00_R", "client"), catalog.getComposites("1").stream()
+            .map(RoleRepresentation::getName).collect(Collectors.toList()));
+        assertEquals("Read", catalog.getRole("ROLE_TLM01_R").get().getAttributes().get("translation_en").get(0));
+        assertEquals(false, catalog.getRole("unknown").isPresent());
+    }
+
+    @Test
+    public void binaryRightsByModule() {
+        assertEquals(Integer.valueOf(0b11000), catalog.binaryRights(Arrays.asList("2", "3")).get("TLM00"));
+        assertEquals(Integer.valueOf(1), catalog.binaryRights(Arrays.asList("1", "4")).get("TLM01"));
+        assertEquals(1, catalog.binaryRights(Arrays.asList("1", "4")).size());
+    }
+}
@@ -18,6 +18,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.karumien.cloud.sso.api.entity.IdentityProjection;
 import com.karumien.cloud.sso.api.model.IdentityPropertyType;
 
 /**
@@ -42,5 +43,20 @@ public class SearchServiceTest {
         assertEquals(2, usersIds.size());
         
     }
-    
+
+    @Test
+    @Ignore
+    public void findIdentityProjections() {
+
+        List<IdentityProjection> identities = searchService.findIdentityProjections(IdentityPropertyType.ATTR_CONTACT_NUMBER, "11714");
+        assertEquals(2, identities.size());
+
+        // attributes pivoted into one row per identity, credential presence from same query
+        for (IdentityProjection identity : identities) {
+            assertEquals("11714", identity.getContactNumber());
+            assertNotNull(identity.getAccountNumber());
+            assertNotNull(identity.getHasCredentials());
+        }
+    }
+
 }
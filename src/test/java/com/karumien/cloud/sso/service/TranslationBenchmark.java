@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.util.CollectionUtils;
+
+import com.karumien.cloud.sso.HeaderLocaleResolver;
+import com.karumien.cloud.sso.api.entity.RoleEntity;
+
+/**
+ * JMH benchmark of role translations - per call lookup over {@link ResourceBundleMessageSource} against precompiled
+ * {@link TranslationCatalog} (not part of unit tests, run by {@link #main(String[])} from test classpath) - 200 roles
+ * in language cs, half with translation[cs] attribute.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 17:48:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslationBenchmark {
+
+    private static final int ROLES = 200;
+
+    private static final Locale LOCALE = new Locale("cs");
+
+    private ResourceBundleMessageSource messageSource;
+
+    private List<RoleEntity> roles;
+
+    private Map<String, Map<String, List<String>>> attributes;
+
+    private RoleCatalog catalog;
+
+    @Setup
+    public void setup() {
+        messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasenames(HeaderLocaleResolver.MESSAGES);
+        messageSource.setDefaultEncoding("UTF-8");
+        messageSource.setUseCodeAsDefaultMessage(true);
+
+        roles = new ArrayList<>();
+        attributes = new HashMap<>();
+        List<Object[]> attributeRows = new ArrayList<>();
+        for (int i = 0; i < ROLES; i++) {
+            RoleEntity role = new RoleEntity();
+            role.setId("id" + i);
+            role.setName("ROLE_TLM" + i + "_R");
+            role.setDescription("Role " + i);
+            roles.add(role);
+
+            Map<String, List<String>> roleAttributes = new HashMap<>();
+            if (i % 2 == 0) {
+                roleAttributes.put(LocalizationService.ATTR_TRANSLATION + "[cs]", Arrays.asList("Role " + i + " cs"));
+                attributeRows.add(new Object[] { role.getId(), LocalizationService.ATTR_TRANSLATION + "[cs]", "Role " + i + " cs" });
+            }
+            attributes.put(role.getName(), roleAttributes);
+        }
+
+        catalog = RoleCatalog.of(1, roles, new ArrayList<>(), attributeRows,
+            TranslationCatalog.load(HeaderLocaleResolver.SUPPORTED_LOCALES, HeaderLocaleResolver.MESSAGES));
+    }
+
+    /** Translation as done by LocalizationService before precompiled catalog */
+    private String legacy(String localeKey, Map<String, List<String>> attributes, Locale locale, String defaultTranslate) {
+        String translate = null;
+        List<String> translates = attributes.get(LocalizationService.ATTR_TRANSLATION + "[" + locale.getLanguage() + "]");
+        if (!CollectionUtils.isEmpty(translates)) {
+            translate = translates.get(0);
+        }
+        if (translate == null) {
+            translates = attributes.get(LocalizationService.ATTR_TRANSLATION);
+            if (!CollectionUtils.isEmpty(translates)) {
+                translate = translates.get(0);
+            }
+        }
+        if (translate == null && localeKey != null) {
+            translate = messageSource.getMessage(localeKey, null, locale);
+            if (localeKey.equals(translate)) {
+                translate = null;
+            }
+        }
+        return translate == null ? defaultTranslate : translate;
+    }
+
+    @Benchmark
+    public void messageSource(Blackhole blackhole) {
+        for (RoleEntity role : roles) {
+            blackhole.consume(legacy("role" + "." + role.getName().toLowerCase(), attributes.get(role.getName()), LOCALE, role.getDescription()));
+        }
+    }
+
+    @Benchmark
+    public void precompiled(Blackhole blackhole) {
+        for (RoleEntity role : roles) {
+            blackhole.consume(catalog.translate(role.getName(), LOCALE, role.getDescription()));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TranslationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
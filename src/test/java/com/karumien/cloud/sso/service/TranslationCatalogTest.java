@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.Test;
+import org.springframework.context.support.ResourceBundleMessageSource;
+
+import com.karumien.cloud.sso.HeaderLocaleResolver;
+
+/**
+ * Tests {@link TranslationCatalog}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 17. 10. 2026 18:02:44
+ */
+public class TranslationCatalogTest {
+
+    private final TranslationCatalog messages = TranslationCatalog.load(HeaderLocaleResolver.SUPPORTED_LOCALES, HeaderLocaleResolver.MESSAGES);
+
+    @Test
+    public void bundlesByLanguage() {
+        assertEquals("a", messages.get("policy.and", new Locale("cs")));
+        assertEquals("Nesprávne používateľské meno alebo PIN", messages.get("user.invalid.pin", new Locale("sk", "SK")));
+        assertEquals("and", messages.get("policy.and", new Locale("en")));
+        assertNull(messages.get("unknown.key", new Locale("cs")));
+        assertNull(messages.get(null, new Locale("cs")));
+    }
+
+    @Test
+    public void attributesOverrideBundles() {
+        Map<String, List<String>> attributes = new HashMap<>();
+        attributes.put("translation[cs]", Arrays.asList("Čtení"));
+        attributes.put(LocalizationService.ATTR_TRANSLATION, Arrays.asList("Read"));
+
+        TranslationCatalog translations = messages.with(Collections.singletonMap("policy.and", attributes));
+        assertEquals("Čtení", translations.get("policy.and", new Locale("cs")));
+        assertEquals("Read", translations.get("policy.and", new Locale("sk")));
+        assertEquals("Read", translations.get("policy.and", new Locale("xx")));
+        // source catalog is not changed
+        assertEquals("a", messages.get("policy.and", new Locale("sk")));
+        assertEquals("translation[cs]", translations.attributeName(new Locale("cs")));
+    }
+
+    @Test
+    public void sameChainAsMessageSource() throws IOException {
+        ResourceBundleMessageSource messageSource = new ResourceBundleMessageSource();
+        messageSource.setBasenames(HeaderLocaleResolver.MESSAGES);
+        messageSource.setDefaultEncoding("UTF-8");
+        messageSource.setUseCodeAsDefaultMessage(true);
+
+        Properties base = new Properties();
+        try (Reader reader = new InputStreamReader(getClass().getClassLoader().getResourceAsStream(HeaderLocaleResolver.MESSAGES + ".properties"),
+                StandardCharsets.UTF_8)) {
+            base.load(reader);
+        }
+
+        // supported languages with and without own bundle, not supported language (bundle of system locale)
+        for (Locale locale : Arrays.asList(new Locale("cs"), new Locale("sk"), new Locale("en"), new Locale("de"), new Locale("xx"))) {
+            for (String key : base.stringPropertyNames()) {
+                assertEquals(key + " " + locale, messageSource.getMessage(key, null, locale), messages.get(key, locale));
+            }
+        }
+    }
+
+    @Test
+    public void attributesOfNotSupportedLanguage() {
+        Map<String, List<String>> attributes = new HashMap<>();
+        attributes.put("translation[xx]", Arrays.asList("Xx"));
+        attributes.put(LocalizationService.ATTR_TRANSLATION, Arrays.asList("Read"));
+
+        TranslationCatalog translations = messages.with(Collections.singletonMap("policy.and", attributes));
+        assertEquals("Xx", translations.get("policy.and", new Locale("xx")));
+        assertEquals("Read", translations.get("policy.and", new Locale("yy")));
+        assertEquals("Read", translations.get("policy.and", new Locale("cs")));
+        assertNull(translations.attributeName(new Locale("xx")));
+    }
+}
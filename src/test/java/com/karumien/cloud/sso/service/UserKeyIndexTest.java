@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.karumien.cloud.sso.api.model.IdentityPropertyType;
+import com.karumien.cloud.sso.service.IndexedSearchServiceImpl.UserKeyIndex;
+
+/**
+ * Tests {@link UserKeyIndex} of {@link IndexedSearchServiceImpl}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 18. 10. 2026 09:48:21
+ */
+public class UserKeyIndexTest {
+
+    private static Object[] row(String userId, IdentityPropertyType type, String value) {
+        return new Object[] { userId, type.getValue(), value };
+    }
+
+    @Test
+    public void replaceKeepsUnchangedKeys() {
+
+        UserKeyIndex index = new UserKeyIndex();
+        index.add(row("u1", IdentityPropertyType.USERNAME, "novak"));
+        index.add(row("u1", IdentityPropertyType.ATTR_CONTACT_NUMBER, "C1"));
+        index.add(row("u2", IdentityPropertyType.ATTR_CONTACT_NUMBER, "C1"));
+
+        index.replace("u1", Arrays.asList(row("u1", IdentityPropertyType.USERNAME, "novak"),
+            row("u1", IdentityPropertyType.ATTR_CONTACT_NUMBER, "C2")));
+
+        assertEquals(Arrays.asList("u1"), index.find(IdentityPropertyType.USERNAME, "novak"));
+        assertEquals(Arrays.asList("u1"), index.find(IdentityPropertyType.ATTR_CONTACT_NUMBER, "C2"));
+        assertEquals(Arrays.asList("u2"), index.find(IdentityPropertyType.ATTR_CONTACT_NUMBER, "C1"));
+        assertEquals(2, index.size());
+
+        // deleted User
+        index.replace("u1", Collections.emptyList());
+        assertTrue(index.find(IdentityPropertyType.USERNAME, "novak").isEmpty());
+        assertTrue(index.find(IdentityPropertyType.ATTR_CONTACT_NUMBER, "C2").isEmpty());
+        assertEquals(1, index.size());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2019-2029 Karumien s.r.o.
+ *
+ * Karumien s.r.o. is not responsible for defects arising from
+ * unauthorized changes to the source code.
+ */
+package com.karumien.cloud.sso.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.karumien.cloud.sso.exceptions.InvalidCursorException;
+
+/**
+ * Tests {@link KeysetRequest}.
+ *
+ * @author <a href="miroslav.svoboda@karumien.com">Miroslav Svoboda</a>
+ * @since 1.0, 18. 10. 2026 10:21:05
+ */
+public class KeysetRequestTest {
+
+    @Test
+    public void cursorOfSameSort() {
+        String cursor = new KeysetRequest("lastName", false, 10, null).cursor("u1", "Novak:Jr");
+
+        KeysetRequest next = new KeysetRequest("lastName", false, 10, cursor);
+        assertEquals("u1", next.getAfterId());
+        assertEquals("Novak:Jr", next.getAfterValue());
+
+        // NULL sort value
+        next = new KeysetRequest("lastName", false, 10, next.cursor("u2", null));
+        assertEquals("u2", next.getAfterId());
+        assertNull(next.getAfterValue());
+    }
+
+    @Test(expected = InvalidCursorException.class)
+    public void cursorOfOtherProperty() {
+        new KeysetRequest("lastName", false, 10, new KeysetRequest("username", false, 10, null).cursor("u1", "novak"));
+    }
+
+    @Test(expected = InvalidCursorException.class)
+    public void cursorOfOtherDirection() {
+        new KeysetRequest("username", true, 10, new KeysetRequest("username", false, 10, null).cursor("u1", "novak"));
+    }
+
+    @Test(expected = InvalidCursorException.class)
+    public void malformedCursor() {
+        new KeysetRequest("username", false, 10, "%%%");
+    }
+}